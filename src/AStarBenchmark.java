@@ -0,0 +1,90 @@
+import java.util.Random;
+
+/**
+ * Compara o A* sequencial com o bidirecional paralelo em labirintos grandes.
+ *
+ * Para cada tamanho gera um labirinto (MazeGenerator), revela tudo ao agente e mede as
+ * mesmas consultas longas (distância Manhattan >= Agent.PARALLEL_MIN_DISTANCE) nos dois
+ * modos, conferindo que os caminhos têm o mesmo tamanho. Além do tempo informa as células
+ * expandidas: o maior dos dois lados é o trabalho no caminho crítico com dois núcleos livres,
+ * então a razão sequencial / maior lado é o ganho esperado independente da máquina:
+ *
+ *   java -cp out AStarBenchmark [consultas] [lado...]
+ */
+public class AStarBenchmark {
+
+    private static final int WARMUP_QUERIES = 20;
+    private static final double LOOP_RATIO = 0.05;   // Ciclos no labirinto (mais de um caminho possível)
+
+    public static void main(String[] args) {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int[] sizes = {1001, 2001};
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) sizes[i - 1] = Integer.parseInt(args[i]);
+        }
+        System.out.println("Núcleos disponíveis: " + Runtime.getRuntime().availableProcessors());
+        for (int size : sizes) run(size, queries);
+    }
+
+    private static void run(int size, int queries) {
+        Maze maze = Maze.of(MazeGenerator.generate(size, size, 0, LOOP_RATIO, size));
+        Game game = new Game(maze, false);
+        Agent agent = new Agent(game);
+        agent.learnAll();
+
+        int[][] pairs = longQueries(maze, queries + WARMUP_QUERIES, new Random(size));
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            agent.sequentialAStar(pairs[i][0], pairs[i][1]);
+            agent.parallelAStar(pairs[i][0], pairs[i][1]);
+        }
+
+        long sequentialNanos = 0, parallelNanos = 0, steps = 0;
+        long sequentialCells = 0, forwardCells = 0, backwardCells = 0, criticalCells = 0;
+        int mismatches = 0;
+        for (int i = WARMUP_QUERIES; i < pairs.length; i++) {
+            long t0 = System.nanoTime();
+            int a = agent.sequentialAStar(pairs[i][0], pairs[i][1]);
+            long t1 = System.nanoTime();
+            sequentialCells += agent.lastExpanded(-1);
+            int b = agent.parallelAStar(pairs[i][0], pairs[i][1]);
+            long t2 = System.nanoTime();
+            int fwd = agent.lastExpanded(0), bwd = agent.lastExpanded(1);
+            forwardCells += fwd;
+            backwardCells += bwd;
+            criticalCells += Math.max(fwd, bwd);
+            sequentialNanos += t1 - t0;
+            parallelNanos += t2 - t1;
+            steps += a;
+            if (a != b) mismatches++;
+        }
+        System.out.printf("%dx%d: %d consultas, caminho médio %d passos | sequencial %.2f ms | paralelo %.2f ms | speedup %.2fx%s%n",
+                size, size, queries, steps / queries,
+                sequentialNanos / 1e6 / queries, parallelNanos / 1e6 / queries,
+                (double) sequentialNanos / parallelNanos,
+                mismatches == 0 ? "" : " | " + mismatches + " CAMINHOS DIFERENTES");
+        System.out.printf("    células expandidas/consulta: sequencial %d | ida %d + volta %d | ganho esperado com 2 núcleos %.2fx%n",
+                sequentialCells / queries, forwardCells / queries, backwardCells / queries,
+                (double) sequentialCells / criticalCells);
+    }
+
+    /** Pares de células abertas distantes (Manhattan >= limiar do modo paralelo) */
+    private static int[][] longQueries(Maze maze, int count, Random rnd) {
+        int[][] pairs = new int[count][];
+        for (int n = 0; n < count; ) {
+            int a = randomOpen(maze, rnd), b = randomOpen(maze, rnd);
+            int d = Math.abs(a / maze.cols - b / maze.cols) + Math.abs(a % maze.cols - b % maze.cols);
+            if (d >= Agent.PARALLEL_MIN_DISTANCE) pairs[n++] = new int[]{a, b};
+        }
+        return pairs;
+    }
+
+    private static int randomOpen(Maze maze, Random rnd) {
+        while (true) {
+            int r = rnd.nextInt(maze.rows), c = rnd.nextInt(maze.cols);
+            if (!maze.isWall(r, c) && (maze.levelData[r * maze.cols + c] & MazeAnalysis.EXIT_BIT) == 0) {
+                return r * maze.cols + c;
+            }
+        }
+    }
+}
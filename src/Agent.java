@@ -3,30 +3,63 @@ import java.util.*;
 
 // Agente inteligente para o Pacman
 public class Agent {
-    private final Model model;
+    private final Game game;
     private final int ROWS;
     private final int COLS;
 
     // Conhecimento
     private final char[][] knowledge;
     private final boolean[][] visited;
+    private final boolean[][] priorOpen;           // Abertas em partidas anteriores (caminháveis, ainda '?')
 
-    // Planejamento
-    private final Queue<Point> currentPath;
-    private int foodsCollected = 0;
-    private static final int TOTAL_FOOD = 4;
+    // Memória entre partidas no mesmo labirinto (null = desligada)
+    private KnowledgeStore store;
+
+    // Planejamento: caminho atual como índices lineares (linha * COLS + coluna)
+    private int[] path = new int[64];
+    private int pathLen = 0;
+    private int pathPos = 0;
+    private int foodsCollected = 0;                 // Comidas efetivamente comidas neste episódio
+    private static final int ROUTE_TRIES = 4;       // Comidas do percurso tentadas via A* antes de explorar
+    static final int PARALLEL_MIN_DISTANCE = 512;   // Distância Manhattan a partir da qual o A* é paralelo
+
+    // Ordem de visita às comidas (distâncias em cache, invalidadas quando uma célula muda de passagem)
+    private final FoodRouter router;
+    private int passageVersion = 0;
+
+    // A* bidirecional em duas threads para consultas longas (criado na primeira delas)
+    private ParallelAStar parallel;
+    private int expanded;                            // Células expandidas pelo último A* sequencial
+
+    // Planejador Monte Carlo (null = hierarquia gulosa de planPath)
+    private MonteCarloPlanner monteCarlo;
+
+    // Estratégia de busca plugável (null = A* e BFS embutidos, sem alocação)
+    private Planner planner;
+    private final int[] goals = new int[1];
+
+    // Movimento permitido sobre o conhecimento atual (usado pelas buscas externas)
+    private final ParallelAStar.Moves moves = (r, c, nr, nc) -> !isWalkable(nr, nc) && canMove(r, c, nr, nc);
 
     // Direções
     private static final int[] DX = {0, 0, 1, -1};
     private static final int[] DY = {-1, 1, 0, 0};
 
-    public Agent(Model model) {
-        this.model = model;
-        this.ROWS = model.getRows();
-        this.COLS = model.getCols();
+    // Movimentos devolvidos por decideNextMove (instâncias fixas, não modificar)
+    private static final Point STAY  = new Point(0, 0);
+    private static final Point UP    = new Point(0, -1);
+    private static final Point DOWN  = new Point(0, 1);
+    private static final Point LEFT  = new Point(-1, 0);
+    private static final Point RIGHT = new Point(1, 0);
+
+    public Agent(Game game) {
+        this.game = game;
+        this.ROWS = game.getRows();
+        this.COLS = game.getCols();
         this.knowledge = new char[ROWS][COLS];
         this.visited = new boolean[ROWS][COLS];
-        this.currentPath = new LinkedList<>();
+        this.priorOpen = new boolean[ROWS][COLS];
+        this.router = new FoodRouter(ROWS, COLS);
 
         for (int r = 0; r < ROWS; r++) {
             Arrays.fill(knowledge[r], '?');
@@ -37,30 +70,132 @@ public class Agent {
         for (int r = 0; r < ROWS; r++) {
             Arrays.fill(knowledge[r], '?');
             Arrays.fill(visited[r], false);
+            Arrays.fill(priorOpen[r], false);
         }
-        currentPath.clear();
+        pathLen = pathPos = 0;
         foodsCollected = 0;
+        router.reset();
+        passageVersion++;
+        if (store != null) warmLoad();
+    }
+
+    /**
+     * Liga a memória entre partidas; vale a partir do próximo {@link #reset()}.
+     * O que o agente aprende passa a ser gravado nela.
+     */
+    public void setKnowledgeStore(KnowledgeStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Solta o que o agente segura além dos próprios vetores: planejadores (Monte Carlo,
+     * portfólio) e a memória entre partidas, que é gravada no disco. O agente continua
+     * utilizável, com o A* embutido e sem memória.
+     */
+    public void release() {
+        monteCarlo = null;
+        planner = null;
+        pathLen = pathPos = 0;
+        if (store != null) store.release();
+        store = null;
+    }
+
+    /** Liga/desliga o planejador Monte Carlo no lugar da hierarquia gulosa */
+    public void setMonteCarlo(boolean enabled) {
+        if (!enabled) monteCarlo = null;
+        else if (monteCarlo == null) monteCarlo = new MonteCarloPlanner(ROWS, COLS);
+        pathLen = pathPos = 0;
+    }
+
+    public boolean isMonteCarlo() {
+        return monteCarlo != null;
+    }
+
+    /**
+     * Troca a estratégia usada nas buscas da hierarquia gulosa até a saída e as comidas (a
+     * exploração segue com a BFS embutida); null volta ao A* embutido. A estratégia deve
+     * ser criada sobre {@link #moves()}.
+     */
+    public void setPlanner(Planner planner) {
+        this.planner = planner;
+        pathLen = pathPos = 0;
+    }
+
+    public Planner getPlanner() {
+        return planner;
+    }
+
+    /** Liga/desliga o portfólio de buscas, com as estatísticas em PortfolioPlanner.DEFAULT_STATS_FILE */
+    public void setPortfolio(boolean enabled) {
+        setPlanner(enabled ? new PortfolioPlanner(game.getMaze(), moves,
+                PortfolioPlanner.Stats.open(PortfolioPlanner.DEFAULT_STATS_FILE)) : null);
+    }
+
+    public boolean isPortfolio() {
+        return planner instanceof PortfolioPlanner;
+    }
+
+    /** Movimentos permitidos sobre o conhecimento atual do agente (para criar estratégias) */
+    public ParallelAStar.Moves moves() {
+        return moves;
+    }
+
+    /**
+     * Carrega a topologia aprendida em partidas anteriores: paredes e saída entram no
+     * conhecimento; células abertas ficam '?' (podem ter comida) mas já são caminháveis.
+     */
+    private void warmLoad() {
+        int known = 0;
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) {
+                int kind = store.get(r * COLS + c);
+                if (kind == KnowledgeStore.WALL) knowledge[r][c] = 'X';
+                else if (kind == KnowledgeStore.EXIT) {
+                    knowledge[r][c] = 'S';
+                    router.setExit(r * COLS + c);
+                }
+                else if (kind == KnowledgeStore.OPEN) priorOpen[r][c] = true;
+                if (kind != KnowledgeStore.UNKNOWN) known++;
+            }
+        }
+        if (game.isDebug()) System.out.println("[AGENT] Memória do labirinto: " + known + " células conhecidas");
     }
 
     public Point decideNextMove() {
-        int row = model.getPacmanRow();
-        int col = model.getPacmanCol();
+        int row = game.getPacmanRow();
+        int col = game.getPacmanCol();
 
         // Atualiza conhecimento
         updateKnowledge(row, col);
         visited[row][col] = true;
 
-        // Se precisa de novo caminho
-        if (currentPath.isEmpty()) {
+        // Descarta o passo já alcançado. Se com isso o caminho acabou, planeja de novo já neste
+        // tick: devolver STAY não para o Pacman, que seguiria mais uma célula na mesma direção
+        // (e morreria se ela fosse a saída ainda bloqueada)
+        if (pathPos < pathLen && path[pathPos] == row * COLS + col) pathPos++;
+        if (pathPos >= pathLen) {
             planPath(row, col);
         }
 
-        return followPath(row, col);
+        Point greedy = followPath(row, col);
+        if (monteCarlo == null) return greedy;
+
+        // A jogada gulosa entra como preferência; se a busca escolher outra, replaneja depois
+        int d = monteCarlo.decide(knowledge, row * COLS + col, game.getFoodsLeft(), direction(greedy));
+        if (d < 0) return STAY;
+        Point chosen = move(DX[d], DY[d]);
+        if (chosen != greedy) pathLen = pathPos = 0;
+        return chosen;
     }
 
-    private void updateKnowledge(int row, int col) {
-        char[][] sensor = model.getSensor();
+    /** Índice em DX/DY do movimento (-1 para STAY) */
+    private static int direction(Point p) {
+        for (int d = 0; d < 4; d++) if (p.x == DX[d] && p.y == DY[d]) return d;
+        return -1;
+    }
 
+    private void updateKnowledge(int row, int col) {
+        // Lê o sensor célula a célula (sem criar a matriz 3x3)
         for (int dr = -1; dr <= 1; dr++) {
             for (int dc = -1; dc <= 1; dc++) {
                 int r = row + dr;
@@ -69,189 +204,263 @@ public class Agent {
                     int sr = dr + 1;
                     int sc = dc + 1;
                     if (sr == 2 && sc == 2) continue;
-                    char sensed = sensor[sr][sc];
-                    if (sensed != '?') knowledge[r][c] = sensed;
+                    char sensed = game.sensorAt(sr, sc);
+                    if (sensed != '?') learn(r, c, sensed);
                 }
             }
         }
 
-        knowledge[row][col] = sensor[1][1];
+        learn(row, col, game.sensorAt(1, 1));
+
+        // Comida na célula atual é comida neste mesmo tick (o jogo coleta ao alinhar no bloco)
+        if (knowledge[row][col] == 'o') {
+            foodsCollected++;
+            knowledge[row][col] = '_';
+            router.removeFood(row * COLS + col);
+            if (game.isDebug()) System.out.println("[AGENT] Comida coletada (" + foodsCollected + ")");
+        }
+    }
+
+    private void learn(int r, int c, char sensed) {
+        char old = knowledge[r][c];
+        if (old == sensed) return;
+        int cell = r * COLS + c;
+        if (store != null && old == '?') store.put(cell, KnowledgeStore.kindOf(sensed));
+        knowledge[r][c] = sensed;
+        if (routePassable(old, priorOpen[r][c]) != routePassable(sensed, priorOpen[r][c])) {
+            passageVersion++;                    // Distâncias do roteador mudam
+        }
+        if (old == 'o') router.removeFood(cell);
+        if (sensed == 'o') router.addFood(cell);
+        else if (sensed == 'S') router.setExit(cell);
+    }
 
-        // Conta comidas coletadas
-        // Pode ter coletado comida
+    /**
+     * Células que a BFS do roteador atravessa: as mesmas do A* ('?' só se aberta em partida
+     * anterior), menos a saída, que é só destino
+     */
+    private static boolean routePassable(char ch, boolean priorOpen) {
+        return ch != 'X' && ch != 'S' && (ch != '?' || priorOpen);
     }
 
     private void planPath(int row, int col) {
-        currentPath.clear();
-
-        // Se já coletou as comidas, vai para saída
-        if (foodsCollected >= TOTAL_FOOD || model.isExitUnlocked()) {
-            Point exit = findExit();
-            if (exit != null) {
-                List<Point> path = aStar(row, col, exit.y, exit.x);
-                if (path != null) {
-                    currentPath.addAll(path);
-                    System.out.println("[AGENT] Indo para saída! (" + path.size() + " passos)");
+        pathLen = pathPos = 0;
+        int start = row * COLS + col;
+
+        // Se já coletou as comidas (saída liberada), vai para saída
+        if (game.isExitUnlocked()) {
+            int exit = findExit();
+            if (exit >= 0) {
+                int len = route(start, exit);
+                if (len >= 0) {
+                    if (game.isDebug()) System.out.println("[AGENT] Indo para saída! (" + len + " passos)");
                     return;
                 }
             }
         }
 
-        // Senão, busca comida conhecida
-        Point food = findNearestFood(row, col);
-        if (food != null) {
-            List<Point> path = aStar(row, col, food.y, food.x);
-            if (path != null) {
-                currentPath.addAll(path);
-                System.out.println("[AGENT] Indo buscar comida em (" + food.y + "," + food.x + ")");
-                foodsCollected++;
+        // Senão, busca comida conhecida na ordem do percurso otimizado
+        int foods = router.plan(knowledge, priorOpen, start, passageVersion);
+        for (int i = 0; i < foods && i < ROUTE_TRIES; i++) {
+            int food = router.routeCell(i);
+            if (route(start, food) >= 0) {
+                if (game.isDebug()) System.out.println("[AGENT] Indo buscar comida em (" + food / COLS + "," + food % COLS + ")");
                 return;
             }
         }
 
-        // Senão, explora (vai para fronteira)
-        Point frontier = findNearestFrontier(row, col);
-        if (frontier != null) {
-            List<Point> path = aStar(row, col, frontier.y, frontier.x);
-            if (path != null) {
-                currentPath.addAll(path);
-                System.out.println("[AGENT] Explorando...");
-            }
+        // Senão, explora (vai para fronteira); sempre pela BFS embutida, que para na primeira
+        // fronteira: passar todas as fronteiras como alvos exige varrer a grade a cada passo
+        if (exploreNearestFrontier(start) >= 0) {
+            if (game.isDebug()) System.out.println("[AGENT] Explorando...");
         }
     }
 
     private Point followPath(int row, int col) {
-        if (currentPath.isEmpty()) {
-            return new Point(0, 0);
+        if (pathPos >= pathLen) {
+            return STAY;
         }
 
-        Point next = currentPath.peek();
+        int next = path[pathPos];
 
-        if (next.y == row && next.x == col) {
-            currentPath.poll();
-            if (currentPath.isEmpty()) return new Point(0, 0);
-            next = currentPath.peek();
+        if (next == row * COLS + col) {
+            pathPos++;
+            if (pathPos >= pathLen) return STAY;
+            next = path[pathPos];
         }
 
-        if (!canMove(row, col, next.y, next.x)) {
-            currentPath.clear();
-            return new Point(0, 0);
+        int nr = next / COLS, nc = next % COLS;
+        if (!canMove(row, col, nr, nc)) {
+            pathLen = pathPos = 0;
+            return STAY;
         }
 
-        return new Point(Integer.compare(next.x, col), Integer.compare(next.y, row));
+        return move(Integer.compare(nc, col), Integer.compare(nr, row));
     }
 
-    private List<Point> aStar(int startRow, int startCol, int goalRow, int goalCol) {
-        PriorityQueue<Node> open = new PriorityQueue<>();
-        HashMap<Point, Node> allNodes = new HashMap<>();
-        Set<Point> closed = new HashSet<>();
+    private static Point move(int dx, int dy) {
+        if (dx < 0) return LEFT;
+        if (dx > 0) return RIGHT;
+        if (dy < 0) return UP;
+        if (dy > 0) return DOWN;
+        return STAY;
+    }
 
-        Point start = new Point(startCol, startRow);
-        Point goal = new Point(goalCol, goalRow);
+    /** Caminho até {@code goal} pela estratégia plugada ou pelo A* embutido */
+    private int route(int start, int goal) {
+        if (planner == null) return aStar(start, goal);
+        goals[0] = goal;
+        return usePlanner(start, 1);
+    }
 
-        Node startNode = new Node(start, 0, dist(start, goal));
-        open.add(startNode);
-        allNodes.put(start, startNode);
+    /** Consulta a estratégia plugada e copia o caminho encontrado para o caminho atual */
+    private int usePlanner(int start, int goalCount) {
+        pathLen = pathPos = 0;
+        int len = planner.search(start, goals, goalCount);
+        if (len < 0) return -1;
+        if (path.length < len) path = new int[Math.max(len, path.length * 2)];
+        System.arraycopy(planner.path(), 0, path, 0, len);
+        pathLen = len;
+        return len;
+    }
 
-        while (!open.isEmpty()) {
-            Node cur = open.poll();
-            if (closed.contains(cur.pos)) continue;
-            closed.add(cur.pos);
+    /**
+     * A* sobre o conhecimento do agente, de {@code start} até {@code goal} (índices lineares).
+     * Em caso de sucesso o caminho (sem a origem) passa a ser o caminho atual e o número
+     * de passos é devolvido; senão devolve -1 e o caminho atual fica vazio.
+     * Consultas longas (distância Manhattan >= PARALLEL_MIN_DISTANCE) usam a busca
+     * bidirecional paralela quando há mais de um núcleo.
+     */
+    int aStar(int start, int goal) {
+        if (dist(start / COLS, start % COLS, goal / COLS, goal % COLS) >= PARALLEL_MIN_DISTANCE
+                && ParallelAStar.available()) {
+            return parallelAStar(start, goal);
+        }
+        return sequentialAStar(start, goal);
+    }
 
-            if (cur.pos.equals(goal)) {
-                return buildPath(cur);
+    /** A* numa thread só, com vetores reutilizáveis (SearchBuffers), sem alocar por chamada */
+    int sequentialAStar(int start, int goal) {
+        pathLen = pathPos = expanded = 0;
+        SearchBuffers b = SearchBuffers.get(ROWS * COLS);
+        int goalRow = goal / COLS, goalCol = goal % COLS;
+
+        b.begin();
+        b.g[start] = 0;
+        b.f[start] = dist(start / COLS, start % COLS, goalRow, goalCol);
+        b.parentDir[start] = -1;
+        b.push(start);
+
+        while (!b.isEmpty()) {
+            int cur = b.pop();
+            b.close(cur);
+            expanded++;
+
+            if (cur == goal) {
+                return buildPath(b, start, goal);
             }
 
+            int r = cur / COLS, c = cur % COLS;
             for (int i = 0; i < 4; i++) {
-                int nr = cur.pos.y + DY[i];
-                int nc = cur.pos.x + DX[i];
-                Point np = new Point(nc, nr);
-
-                if (closed.contains(np)) continue;
+                int nr = r + DY[i];
+                int nc = c + DX[i];
                 if (isWalkable(nr, nc)) continue;
-                if (!canMove(cur.pos.y, cur.pos.x, nr, nc)) continue;
-
-                double g = cur.g + 1;
-                Node neighbor = allNodes.get(np);
-
-                if (neighbor == null) {
-                    neighbor = new Node(np, Double.MAX_VALUE, Double.MAX_VALUE);
-                    allNodes.put(np, neighbor);
-                }
-
-                if (g < neighbor.g) {
-                    neighbor.parent = cur;
-                    neighbor.g = g;
-                    neighbor.f = g + dist(np, goal);
-                    open.add(neighbor);
+                int np = nr * COLS + nc;
+                if (b.closed(np)) continue;
+                if (!canMove(r, c, nr, nc)) continue;
+
+                int g = b.g[cur] + 1;
+                if (!b.seen(np) || g < b.g[np]) {
+                    b.g[np] = g;
+                    b.f[np] = g + dist(nr, nc, goalRow, goalCol);
+                    b.parentDir[np] = (byte) i;
+                    b.push(np);
                 }
             }
         }
 
-        return null;
+        return -1;
     }
 
-    private List<Point> buildPath(Node goal) {
-        LinkedList<Point> path = new LinkedList<>();
-        Node cur = goal;
-        while (cur.parent != null) {
-            path.addFirst(cur.pos);
-            cur = cur.parent;
+    /** A* bidirecional: busca direta nesta thread e reversa numa thread auxiliar */
+    int parallelAStar(int start, int goal) {
+        pathLen = pathPos = 0;
+        if (parallel == null) {
+            parallel = new ParallelAStar(ROWS, COLS, moves);
         }
-        return path;
+        int len = parallel.search(start, goal);
+        if (len < 0) return -1;
+        if (path.length < len) path = new int[Math.max(len, path.length * 2)];
+        System.arraycopy(parallel.path(), 0, path, 0, len);
+        pathLen = len;
+        return len;
     }
 
-    private double dist(Point a, Point b) {
-        return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
+    /** Células expandidas pela última busca: sequencial (lado -1) ou cada lado da paralela (0, 1) */
+    int lastExpanded(int side) {
+        return side < 0 ? expanded : parallel == null ? 0 : parallel.expanded(side);
     }
 
-    private Point findNearestFood(int row, int col) {
-        Point best = null;
-        double minDist = Double.MAX_VALUE;
-
-        for (int r = 0; r < ROWS; r++) {
-            for (int c = 0; c < COLS; c++) {
-                if (knowledge[r][c] == 'o') {
-                    double d = Math.abs(r - row) + Math.abs(c - col);
-                    if (d < minDist) {
-                        minDist = d;
-                        best = new Point(c, r);
-                    }
-                }
-            }
+    /** Reconstrói o caminho (sem a origem) a partir das direções de chegada */
+    private int buildPath(SearchBuffers b, int start, int goal) {
+        int len = b.g[goal];
+        if (path.length < len) path = new int[Math.max(len, path.length * 2)];
+        int cur = goal;
+        for (int i = len - 1; i >= 0; i--) {
+            path[i] = cur;
+            int d = b.parentDir[cur];
+            cur -= DY[d] * COLS + DX[d];
         }
+        pathLen = len;
+        pathPos = 0;
+        return len;
+    }
 
-        return best;
+    private static int dist(int r1, int c1, int r2, int c2) {
+        return Math.abs(r1 - r2) + Math.abs(c1 - c2);
     }
 
-    private Point findExit() {
+    private int findExit() {
         for (int r = 0; r < ROWS; r++) {
             for (int c = 0; c < COLS; c++) {
                 if (knowledge[r][c] == 'S') {
-                    return new Point(c, r);
+                    return r * COLS + c;
                 }
             }
         }
-        return null;
+        return -1;
     }
 
-    private Point findNearestFrontier(int row, int col) {
-        Point best = null;
-        double minDist = Double.MAX_VALUE;
-
-        for (int r = 0; r < ROWS; r++) {
-            for (int c = 0; c < COLS; c++) {
-                if (isFrontier(r, c)) {
-                    double d = Math.abs(r - row) + Math.abs(c - col);
-                    if (d < minDist) {
-                        minDist = d;
-                        best = new Point(c, r);
-                    }
-                }
+    /**
+     * BFS a partir de {@code start} pelas células caminháveis até a fronteira mais próxima
+     * em passos (não em distância Manhattan, que pode apontar para o outro lado de uma parede
+     * ou para uma fronteira inalcançável). O caminho encontrado passa a ser o caminho atual.
+     */
+    private int exploreNearestFrontier(int start) {
+        SearchBuffers b = SearchBuffers.get(ROWS * COLS);
+        int[] queue = b.heap;
+        b.begin();
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        b.mark(start);
+        b.g[start] = 0;
+        while (head < tail) {
+            int cur = queue[head++];
+            int r = cur / COLS, c = cur % COLS;
+            if (cur != start && isFrontier(r, c)) return buildPath(b, start, cur);
+            for (int i = 0; i < 4; i++) {
+                int nr = r + DY[i];
+                int nc = c + DX[i];
+                if (isWalkable(nr, nc)) continue;
+                int np = nr * COLS + nc;
+                if (b.seen(np) || !canMove(r, c, nr, nc)) continue;
+                b.mark(np);
+                b.g[np] = b.g[cur] + 1;
+                b.parentDir[np] = (byte) i;
+                queue[tail++] = np;
             }
         }
-
-        return best;
+        return -1;
     }
 
     private boolean isFrontier(int r, int c) {
@@ -272,30 +481,20 @@ public class Agent {
     private boolean isWalkable(int r, int c) {
         if (r < 0 || r >= ROWS || c < 0 || c >= COLS) return true;
         char cell = knowledge[r][c];
-        if (cell == '?' || cell == 'X') return true;
-        return cell == 'S' && !model.isExitUnlocked();
+        if (cell == 'X' || (cell == '?' && !priorOpen[r][c])) return true;
+        return cell == 'S' && !game.isExitUnlocked();
     }
 
     private boolean canMove(int r1, int c1, int r2, int c2) {
-        return model.canMoveBetween(r1, c1, r2, c2);
+        return game.canMoveBetween(r1, c1, r2, c2);
     }
 
-    private static class Node implements Comparable<Node> {
-        final Point pos;
-        Node parent;
-        double g, f;
-
-        Node(Point pos, double g, double f) {
-            this.pos = pos;
-            this.parent = null;
-            this.g = g;
-            this.f = f;
-        }
-
-        @Override
-        public int compareTo(Node o) {
-            return Double.compare(this.f, o.f);
+    /** Revela todo o labirinto ao agente (benchmarks e testes de planejamento) */
+    void learnAll() {
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) {
+                learn(r, c, game.cellCharAt(r, c));
+            }
         }
     }
 }
-
@@ -0,0 +1,155 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Verificação de orçamento de alocação dos caminhos quentes (tick, sensor, agente, A*).
+ *
+ * Roda o núcleo do jogo e o agente por muitos ticks em labirintos de referência e mede
+ * os bytes alocados por operação com ThreadMXBean.getThreadAllocatedBytes. Cada caminho
+ * tem um orçamento (bytes/op, em regime estável); se algum for excedido o processo
+ * termina com código 1, o que falha o script de build/CI que o executa:
+ *
+ *   javac -d out src/*.java && java -cp out AllocationBudget
+ */
+public class AllocationBudget {
+
+    private static final int WARMUP_ROUNDS = 3;    // Rodadas de aquecimento (JIT, buffers por thread)
+    private static final int TICKS = 200_000;      // Ticks medidos por caminho
+    private static final int QUERIES = 2_000;      // Buscas A* medidas
+
+    // Orçamentos em bytes por operação (regime estável)
+    private static final double TICK_BUDGET = 0;
+    private static final double SENSOR_BUDGET = 0;
+    private static final double AGENT_TICK_BUDGET = 0;
+    private static final double ASTAR_BUDGET = 0;
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static long calibration;
+
+    /** Um caminho medido: executa {@code ops} operações */
+    private interface Workload {
+        void run(int ops);
+    }
+
+    public static void main(String[] args) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            System.out.println("[ALLOC] JVM sem suporte a getThreadAllocatedBytes; verificação ignorada.");
+            return;
+        }
+        threads = (com.sun.management.ThreadMXBean) bean;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long a = allocated();
+        calibration = allocated() - a;   // Custo da própria medição
+
+        List<String> failures = new ArrayList<>();
+        List<Maze> mazes = referenceMazes();
+        for (Maze maze : mazes) {
+            String name = maze.rows + "x" + maze.cols;
+            check(failures, "Game.tick (manual) " + name, TICK_BUDGET, TICKS, manualTicks(maze));
+            check(failures, "Game.sensorAt " + name, SENSOR_BUDGET, TICKS, sensorReads(maze));
+            check(failures, "Game.tick + Agent.decideNextMove " + name, AGENT_TICK_BUDGET, TICKS, agentTicks(maze));
+            check(failures, "Agent.aStar " + name, ASTAR_BUDGET, QUERIES, aStarQueries(maze));
+        }
+
+        if (!failures.isEmpty()) {
+            System.out.println("[ALLOC] Orçamento excedido:");
+            for (String f : failures) System.out.println("  " + f);
+            System.exit(1);
+        }
+        System.out.println("[ALLOC] Todos os caminhos dentro do orçamento.");
+    }
+
+    /** Labirinto do jogo + labirintos gerados (pequeno com ciclos e grande) */
+    private static List<Maze> referenceMazes() {
+        List<Maze> list = new ArrayList<>();
+        Maze main = Maze.load("src/resources/maze.txt");
+        if (main != null) list.add(main);
+        list.add(Maze.of(MazeGenerator.generate(41, 61, 12, 0.15, 1)));
+        list.add(Maze.of(MazeGenerator.generate(201, 201, 40, 0.05, 2)));
+        return list;
+    }
+
+    private static void check(List<String> failures, String name, double budget, int ops, Workload w) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) w.run(ops);
+        long before = allocated();
+        w.run(ops);
+        long bytes = Math.max(0, allocated() - before - calibration);
+        double perOp = (double) bytes / ops;
+        boolean ok = perOp <= budget;
+        System.out.printf("[ALLOC] %-45s %10.3f B/op (orçamento %.1f) %s%n", name, perOp, budget, ok ? "OK" : "FALHOU");
+        if (!ok) failures.add(String.format("%s: %.3f B/op > %.1f", name, perOp, budget));
+    }
+
+    private static long allocated() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // ===================== CARGAS =====================
+
+    private static Workload manualTicks(Maze maze) {
+        Game game = new Game(maze, false);
+        game.setAiEnabled(false);
+        Random rnd = new Random(7);
+        return ops -> {
+            for (int i = 0; i < ops; i++) {
+                if (!game.isInGame()) game.start();
+                if ((i & 7) == 0) {
+                    int d = rnd.nextInt(4);
+                    game.requestDirection(d == 0 ? -1 : d == 1 ? 1 : 0, d == 2 ? -1 : d == 3 ? 1 : 0);
+                }
+                game.tick();
+            }
+        };
+    }
+
+    private static Workload sensorReads(Maze maze) {
+        Game game = new Game(maze, false);
+        game.setAiEnabled(false);
+        game.start();
+        int[] sink = new int[1];
+        return ops -> {
+            int acc = 0;
+            for (int i = 0; i < ops; i++) {
+                for (int r = 0; r < 3; r++) {
+                    for (int c = 0; c < 3; c++) acc += game.sensorAt(r, c);
+                }
+            }
+            sink[0] += acc;
+        };
+    }
+
+    private static Workload agentTicks(Maze maze) {
+        Game game = new Game(maze, false);
+        Agent agent = new Agent(game);
+        game.setAgent(agent);
+        return ops -> {
+            for (int i = 0; i < ops; i++) {
+                if (!game.isInGame()) game.start();
+                game.tick();
+            }
+        };
+    }
+
+    private static Workload aStarQueries(Maze maze) {
+        Game game = new Game(maze, false);
+        Agent agent = new Agent(game);
+        agent.learnAll();
+        // Células abertas pré-calculadas fora da medição
+        int[] open = new int[maze.rows * maze.cols];
+        int n = 0;
+        for (int i = 0; i < open.length; i++) {
+            if (!maze.isWall(i / maze.cols, i % maze.cols) && (maze.levelData[i] & MazeAnalysis.EXIT_BIT) == 0) open[n++] = i;
+        }
+        int count = n;
+        Random rnd = new Random(11);
+        return ops -> {
+            for (int i = 0; i < ops; i++) {
+                agent.aStar(open[rnd.nextInt(count)], open[rnd.nextInt(count)]);
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+import javax.swing.ImageIcon;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * Recursos do jogo (imagens, labirintos e pacotes de níveis), procurados pelo nome relativo
+ * (ex.: "images/down.gif") primeiro no classpath e depois em src/, para rodar tanto de um
+ * jar/IDE quanto com {@code java -cp out} na raiz do projeto.
+ *
+ * As imagens são carregadas uma única vez, na inicialização da classe (a JVM garante que
+ * ela acontece em uma só thread), e compartilhadas por todas as telas e níveis.
+ */
+public final class Assets {
+
+    private static final String SOURCE_DIR = "src";   // Fallback fora do classpath
+
+    public static final Image DOWN  = image("images/down.gif");
+    public static final Image UP    = image("images/up.gif");
+    public static final Image LEFT  = image("images/left.gif");
+    public static final Image RIGHT = image("images/right.gif");
+    public static final Image HEART = image("images/heart.png");
+    public static final Image FOOD  = image("images/food.png");
+
+    private Assets() {
+    }
+
+    /** Localiza o recurso: classpath, depois src/; null se não existir */
+    public static URL find(String name) {
+        URL url = Assets.class.getResource("/" + name);
+        if (url != null) return url;
+        File file = new File(SOURCE_DIR, name);
+        if (!file.isFile()) return null;
+        try {
+            return file.toURI().toURL();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    /** Força o carregamento das imagens (útil para fazê-lo fora da thread que vai desenhar) */
+    public static void load() {
+        // Basta tocar na classe: os campos estáticos são inicializados uma vez
+    }
+
+    private static Image image(String name) {
+        URL url = find(name);
+        if (url == null) {
+            System.out.println("[AVISO] Imagem não encontrada: " + name);
+            return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        }
+        return new ImageIcon(url).getImage();   // Espera o carregamento (MediaTracker)
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Câmera (viewport) que segue o Pacman sobre o labirinto.
+ * Trabalha em pixels de tela: cada nível de zoom define o tamanho do bloco desenhado.
+ * Também informa o intervalo de linhas/colunas visíveis, para que só elas sejam desenhadas.
+ */
+public class Camera {
+
+    // Tamanho do bloco na tela para cada nível de zoom (o primeiro é o tamanho lógico do jogo)
+    public static final int[] TILE_SIZES = {Game.BLOCK_SIZE, 12, 6, 3};
+
+    private final int rows, cols;
+    private final int viewWidth, viewHeight;
+    private int zoom = 0;
+    private int x, y;               // Canto superior esquerdo da câmera, em pixels de tela
+
+    public Camera(int rows, int cols, int viewWidth, int viewHeight) {
+        this.rows = rows;
+        this.cols = cols;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+    }
+
+    public int tile() { return TILE_SIZES[zoom]; }
+    public int zoomLevel() { return zoom; }
+    public void zoomIn() { if (zoom > 0) zoom--; }
+    public void zoomOut() { if (zoom < TILE_SIZES.length - 1) zoom++; }
+    public void setZoomLevel(int level) { zoom = Math.max(0, Math.min(level, TILE_SIZES.length - 1)); }
+
+    /** Centraliza no Pacman (coordenadas lógicas do jogo), sem sair dos limites do labirinto */
+    public void follow(int pacmanX, int pacmanY) {
+        int t = tile();
+        x = center(pacmanX * t / Game.BLOCK_SIZE + t / 2, cols * t, viewWidth);
+        y = center(pacmanY * t / Game.BLOCK_SIZE + t / 2, rows * t, viewHeight);
+    }
+
+    private static int center(int target, int world, int view) {
+        if (world <= view) return -(view - world) / 2;   // Labirinto menor que a tela: centraliza
+        return Math.max(0, Math.min(world - view, target - view / 2));
+    }
+
+    public int x() { return x; }
+    public int y() { return y; }
+
+    public int firstCol() { return Math.max(0, Math.floorDiv(x, tile())); }
+    public int lastCol()  { return Math.min(cols - 1, Math.floorDiv(x + viewWidth - 1, tile())); }
+    public int firstRow() { return Math.max(0, Math.floorDiv(y, tile())); }
+    public int lastRow()  { return Math.min(rows - 1, Math.floorDiv(y + viewHeight - 1, tile())); }
+
+    /** Se o labirinto inteiro cabe na tela no zoom atual */
+    public boolean showsWholeMaze() {
+        return cols * tile() <= viewWidth && rows * tile() <= viewHeight;
+    }
+}
@@ -0,0 +1,295 @@
+/**
+ * Ordena a visita às comidas conhecidas para reduzir o total de passos.
+ *
+ * As distâncias entre pontos de interesse (comidas conhecidas e a saída) são obtidas por
+ * BFS sobre o mapa acreditado pelo agente, com a mesma regra de passagem do A* do agente:
+ * 'X' é parede, '?' só passa se foi aberta em partida anterior, e a saída só pode ser
+ * origem (entrar nela bloqueada mata). Assim a ordem é ajustada sobre distâncias que o
+ * agente consegue andar. A tabela é invalidada quando alguma célula muda de passagem
+ * (o agente conta essas mudanças e passa a versão para {@link #plan}).
+ *
+ * O agente avisa quando descobre ou come uma comida e quando encontra a saída
+ * ({@link #addFood}, {@link #removeFood}, {@link #setExit}); o planejamento não varre a grade.
+ *
+ * A ordem parte do vizinho mais próximo e é refinada com 2-opt e Or-opt até não melhorar
+ * ou até acabar o orçamento de tempo por planejamento. Se a saída é conhecida, o percurso
+ * termina nela.
+ */
+public class FoodRouter {
+
+    private static final int INF = 1 << 20;                  // Distância para alvos inalcançáveis
+    private static final long PLAN_BUDGET_NANOS = 2_000_000; // Orçamento de refinamento por planejamento
+    private static final int AGENT = -1;                     // "Slot" da posição atual do agente
+    private static final int NONE = -2;                      // Sem próximo (fim do percurso aberto)
+
+    private static final int[] DR = {-1, 1, 0, 0};
+    private static final int[] DC = {0, 0, 1, -1};
+
+    private final int rows, cols;
+    private final int[] slotOf;              // célula -> slot (-1 = não é ponto de interesse)
+
+    // Slots de pontos de interesse (comidas e saída) e tabela de distâncias cap x cap
+    private int cap = 16;
+    private int used = 0;                    // Slots em uso ficam em [0, used)
+    private int[] slotCell = new int[cap];
+    private boolean[] slotValid = new boolean[cap];
+    private int[] dist = new int[cap * cap];
+    private int[] agentDist = new int[cap];
+    private int passageVersion = -1;
+
+    // Percurso atual: slots das comidas na ordem de visita
+    private int[] route = new int[cap];
+    private int[] scratch = new int[cap];
+    private int routeSize = 0;
+    private int exitSlot = -1;
+
+    public FoodRouter(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.slotOf = new int[rows * cols];
+        java.util.Arrays.fill(slotOf, -1);
+        java.util.Arrays.fill(slotCell, -1);
+    }
+
+    /** Esquece tudo (novo episódio) */
+    public void reset() {
+        for (int s = 0; s < used; s++) {
+            if (slotCell[s] >= 0) slotOf[slotCell[s]] = -1;
+            slotCell[s] = -1;
+            slotValid[s] = false;
+        }
+        used = 0;
+        routeSize = 0;
+        exitSlot = -1;
+        passageVersion = -1;
+    }
+
+    /** Comida conhecida nova na célula */
+    public void addFood(int cell) {
+        if (slotOf[cell] < 0) allocSlot(cell);
+    }
+
+    /** Comida comida (ou que se revelou não estar lá) */
+    public void removeFood(int cell) {
+        int s = slotOf[cell];
+        if (s < 0 || s == exitSlot) return;
+        slotOf[cell] = -1;
+        slotCell[s] = -1;
+        slotValid[s] = false;
+    }
+
+    /** Saída encontrada na célula */
+    public void setExit(int cell) {
+        if (exitSlot >= 0 && slotCell[exitSlot] == cell) return;
+        if (exitSlot >= 0) { // Outra saída conhecida antes: libera o slot antigo
+            slotOf[slotCell[exitSlot]] = -1;
+            slotCell[exitSlot] = -1;
+            slotValid[exitSlot] = false;
+        }
+        removeFood(cell);
+        exitSlot = allocSlot(cell);
+    }
+
+    /**
+     * Recalcula a ordem de visita a partir da posição {@code agentCell}.
+     * {@code passageVersion} deve mudar sempre que uma célula mudar de passagem segundo
+     * {@code knowledge}/{@code priorOpen}. Devolve o número de comidas no percurso
+     * (ver {@link #routeCell(int)}).
+     */
+    public int plan(char[][] knowledge, boolean[][] priorOpen, int agentCell, int passageVersion) {
+        collect();
+        if (routeSize == 0) return 0;
+
+        if (passageVersion != this.passageVersion) {
+            for (int s = 0; s < used; s++) slotValid[s] = false;
+            this.passageVersion = passageVersion;
+        }
+        for (int s = 0; s < used; s++) {
+            if (slotCell[s] >= 0 && !slotValid[s]) {
+                bfs(knowledge, priorOpen, slotCell[s], s);
+                slotValid[s] = true;
+            }
+        }
+        bfs(knowledge, priorOpen, agentCell, AGENT);
+
+        nearestNeighbor();
+        long deadline = System.nanoTime() + PLAN_BUDGET_NANOS;
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(deadline);
+            improved |= orOpt(deadline);
+        }
+        return routeSize;
+    }
+
+    /** Célula da i-ésima comida do percurso */
+    public int routeCell(int i) {
+        return slotCell[route[i]];
+    }
+
+    // ===================== PONTOS DE INTERESSE =====================
+
+    /** Percurso inicial: todas as comidas com slot (a saída fica fora, em exitSlot) */
+    private void collect() {
+        routeSize = 0;
+        for (int s = 0; s < used; s++) {
+            if (slotCell[s] < 0 || s == exitSlot) continue;
+            if (routeSize == route.length) growRoute();
+            route[routeSize++] = s;
+        }
+    }
+
+    private int allocSlot(int cell) {
+        int s = 0;
+        while (s < used && slotCell[s] >= 0) s++;
+        if (s == used) {
+            if (used == cap) grow();
+            used++;
+        }
+        slotCell[s] = cell;
+        slotValid[s] = false;
+        slotOf[cell] = s;
+        return s;
+    }
+
+    private void grow() {
+        int newCap = cap * 2;
+        int[] nd = new int[newCap * newCap];
+        for (int i = 0; i < cap; i++) System.arraycopy(dist, i * cap, nd, i * newCap, cap);
+        dist = nd;
+        slotCell = java.util.Arrays.copyOf(slotCell, newCap);
+        java.util.Arrays.fill(slotCell, cap, newCap, -1);
+        slotValid = java.util.Arrays.copyOf(slotValid, newCap);
+        agentDist = java.util.Arrays.copyOf(agentDist, newCap);
+        cap = newCap;
+    }
+
+    private void growRoute() {
+        route = java.util.Arrays.copyOf(route, route.length * 2);
+        scratch = new int[route.length];
+    }
+
+    /**
+     * BFS no mapa acreditado a partir de {@code src}; grava a distância para todos os slots
+     * em uso na linha/coluna de {@code slot} (ou em agentDist).
+     */
+    private void bfs(char[][] knowledge, boolean[][] priorOpen, int src, int slot) {
+        SearchBuffers b = SearchBuffers.get(rows * cols);
+        int[] queue = b.heap;
+        b.begin();
+        int head = 0, tail = 0;
+        queue[tail++] = src;
+        b.mark(src);
+        b.g[src] = 0;
+        while (head < tail) {
+            int cur = queue[head++];
+            int r = cur / cols, c = cur % cols;
+            for (int i = 0; i < 4; i++) {
+                int nr = r + DR[i], nc = c + DC[i];
+                if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                int np = nr * cols + nc;
+                if (b.seen(np)) continue;
+                char ch = knowledge[nr][nc];
+                if (ch == 'X' || (ch == '?' && !priorOpen[nr][nc])) continue;
+                b.mark(np);
+                b.g[np] = b.g[cur] + 1;
+                if (ch != 'S') queue[tail++] = np; // A saída bloqueada é destino, nunca passagem
+            }
+        }
+        for (int t = 0; t < used; t++) {
+            int cell = slotCell[t];
+            if (cell < 0) continue;
+            int v = b.seen(cell) ? b.g[cell] : INF;
+            if (slot == AGENT) {
+                agentDist[t] = v;
+            } else {
+                dist[slot * cap + t] = v;
+                dist[t * cap + slot] = v;
+            }
+        }
+    }
+
+    private int d(int a, int b) {
+        if (b == NONE) return 0;
+        if (a == AGENT) return agentDist[b];
+        return dist[a * cap + b];
+    }
+
+    // ===================== ORDEM DE VISITA =====================
+
+    private void nearestNeighbor() {
+        int prev = AGENT;
+        for (int i = 0; i < routeSize; i++) {
+            int best = i;
+            for (int j = i + 1; j < routeSize; j++) {
+                if (d(prev, route[j]) < d(prev, route[best])) best = j;
+            }
+            int tmp = route[i]; route[i] = route[best]; route[best] = tmp;
+            prev = route[i];
+        }
+    }
+
+    private int before(int i) { return i == 0 ? AGENT : route[i - 1]; }
+
+    private int after(int i) { return i == routeSize - 1 ? (exitSlot < 0 ? NONE : exitSlot) : route[i + 1]; }
+
+    /** 2-opt: inverte trechos route[i..j] quando encurta o percurso */
+    private boolean twoOpt(long deadline) {
+        boolean improved = false;
+        for (int i = 0; i < routeSize - 1; i++) {
+            if (System.nanoTime() > deadline) return improved;
+            for (int j = i + 1; j < routeSize; j++) {
+                int a = before(i), b = route[i], c = route[j], e = after(j);
+                int delta = d(a, c) + d(b, e) - d(a, b) - d(c, e);
+                if (delta < 0) {
+                    for (int x = i, y = j; x < y; x++, y--) {
+                        int tmp = route[x]; route[x] = route[y]; route[y] = tmp;
+                    }
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /** Or-opt: move trechos de 1 a 3 comidas para outra posição quando encurta o percurso */
+    private boolean orOpt(long deadline) {
+        boolean improved = false;
+        for (int len = 1; len <= 3; len++) {
+            for (int i = 0; i + len <= routeSize; i++) {
+                if (System.nanoTime() > deadline) return improved;
+                int first = route[i], last = route[i + len - 1];
+                int a = before(i), e = after(i + len - 1);
+                int removeGain = d(a, first) + d(last, e) - d(a, e);
+                // Procura a melhor aresta (p, q) fora do trecho para inserir
+                int bestPos = 0, bestDelta = 0;
+                for (int p = -1; p < routeSize; p++) {
+                    if (p >= i - 1 && p < i + len) continue; // Aresta adjacente ou dentro do trecho
+                    int from = p < 0 ? AGENT : route[p];
+                    int to = p + 1 < routeSize ? route[p + 1] : (exitSlot < 0 ? NONE : exitSlot);
+                    int delta = d(from, first) + d(last, to) - d(from, to) - removeGain;
+                    if (delta < bestDelta) { bestDelta = delta; bestPos = p; }
+                }
+                if (bestDelta < 0) {
+                    moveSegment(i, len, bestPos);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /** Move route[i..i+len) para logo depois da posição p (p = -1: início) */
+    private void moveSegment(int i, int len, int p) {
+        System.arraycopy(route, i, scratch, 0, len);
+        if (p < i) {
+            // Desloca route[p+1..i) para a direita e insere em p+1
+            System.arraycopy(route, p + 1, route, p + 1 + len, i - (p + 1));
+            System.arraycopy(scratch, 0, route, p + 1, len);
+        } else {
+            // Desloca route[i+len..p] para a esquerda e insere no fim desse bloco
+            System.arraycopy(route, i + len, route, i, p - (i + len) + 1);
+            System.arraycopy(scratch, 0, route, p - len + 1, len);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+/**
+ * Núcleo do jogo sem interface gráfica (uma partida):
+ * - Movimentação do Pacman em pixels, alinhada a blocos
+ * - Coleta de comidas (bitset por partida) e liberação da saída
+ * - Pontuação, vidas e estados de vitória/derrota
+ * - API de sensor para o agente
+ *
+ * O labirinto (Maze) é imutável e pode ser compartilhado por milhares de partidas;
+ * cada Game guarda apenas posição, contadores e o bitset de comidas restantes.
+ */
+public class Game {
+
+    public static final int BLOCK_SIZE = 24;             // Tamanho lógico (pixels) de cada bloco
+    private static final boolean LOG_STEPS = false;      // Ativa log detalhado de passos (movimento)
+    private static final int PACMAN_SPEED = 3;           // Velocidade (pixels por frame)
+    public static final int FOOD_VALUE = 10;             // Pontos ganhos por comida
+    public static final int STEP_PENALTY = -1;           // Penalidade ao entrar em um novo bloco
+    public static final int WIN_BONUS = 100;             // Bônus ao vencer
+    public static final int START_LIVES = 3;
+
+    private static final short LEFT_BIT   = MazeAnalysis.LEFT_BIT;
+    private static final short TOP_BIT    = MazeAnalysis.TOP_BIT;
+    private static final short RIGHT_BIT  = MazeAnalysis.RIGHT_BIT;
+    private static final short BOTTOM_BIT = MazeAnalysis.BOTTOM_BIT;
+    private static final short EXIT_BIT   = MazeAnalysis.EXIT_BIT;
+
+    private final Maze maze;
+    private final int ROWS, COLS;
+    private final boolean debug;             // Logs de depuração (desligar em partidas headless)
+
+    private final long[] food;               // Bit i = comida i ainda presente (ver Maze.foodIndex)
+
+    private boolean inGame = false;          // Indica se a partida está em andamento
+    private boolean gameWon = false;         // Indica se o jogador venceu
+    private int score;                       // Pontuação atual
+    private int lives;                       // Vidas restantes
+
+    // Coordenadas do Pacman em pixels
+    private int pacman_x, pacman_y;
+    // Direção aplicada atualmente
+    private int pacmand_x, pacmand_y;
+    // Direção solicitada (tecla ou agente)
+    private int req_dx, req_dy;
+
+    private boolean exitUnlocked = false;     // Se a saída já foi liberada (todas comidas coletadas)
+    private int foodsLeft = 0;                // Quantas comidas ainda restam
+    private boolean hungerJustDied = false;   // Usado para exibir mensagem ao morrer por fome (saída antecipada)
+    private int frameCounter = 0;             // Contador de frames para debug/memória
+
+    private Agent agent;
+    private boolean aiEnabled = true;
+
+    public Game(Maze maze, boolean debug) {
+        this.maze = maze;
+        this.ROWS = maze.rows;
+        this.COLS = maze.cols;
+        this.debug = debug;
+        this.food = new long[(maze.totalFood + 63) >>> 6];
+        initGame();
+    }
+
+    /** Associa o agente que controla o Pacman quando a IA está ligada */
+    public void setAgent(Agent agent) {
+        this.agent = agent;
+    }
+
+    /** Inicia (ou reinicia) a partida */
+    public void start() {
+        inGame = true;
+        initGame();
+    }
+
+    /** Pausa / volta para a tela inicial */
+    public void stop() {
+        inGame = false;
+    }
+
+    /** Inicializa/reinicia o estado da partida */
+    public void initGame() {
+        lives = START_LIVES;
+        score = 0;
+        gameWon = false;
+        hungerJustDied = false;
+        java.util.Arrays.fill(food, 0L);                                  // Copia estado base
+        for (int i = 0; i < maze.totalFood; i++) food[i >>> 6] |= 1L << i;
+        foodsLeft = maze.totalFood;
+        if (debug) System.out.println("[DEBUG] Recontagem de comidas: totalFood=" + maze.totalFood);
+        exitUnlocked = false;                                             // Saída começa bloqueada
+        if (foodsLeft == 0) {                                             // Caso especial: nenhum alimento
+            exitUnlocked = true;
+            if (debug) System.out.println("[DEBUG] Nenhuma comida após init. Saída liberada.");
+        } else if (debug) {
+            System.out.println("[DEBUG] Jogo iniciado. Comidas: " + foodsLeft + ", saída bloqueada.");
+        }
+        placePacman();                // Define posição inicial
+        pacmand_x = pacmand_y = 0;    // Zera movimentação
+        req_dx = req_dy = 0;          // Zera direção solicitada
+        if (agent != null) {
+            agent.reset();
+        }
+    }
+
+    /** Posiciona o Pacman: primeiro tenta 'E', senão escolhe qualquer célula válida */
+    private void placePacman() {
+        if (maze.startRow >= 0 && maze.startCol >= 0) { // Se posição 'E' foi encontrada
+            pacman_x = maze.startCol * BLOCK_SIZE;
+            pacman_y = maze.startRow * BLOCK_SIZE;
+            if (debug) System.out.println("[DEBUG] Pacman iniciado em E: ("+maze.startRow+","+maze.startCol+")");
+            return;
+        }
+        // Fallback: primeira célula não parede e não saída
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) {
+                if (maze.map[r][c] != 'X' && (maze.levelData[r * COLS + c] & EXIT_BIT) == 0) {
+                    pacman_x = c * BLOCK_SIZE;
+                    pacman_y = r * BLOCK_SIZE;
+                    if (debug) System.out.println("[DEBUG] Pacman iniciado fallback em ("+r+","+c+")");
+                    return;
+                }
+            }
+        }
+        // Se nada encontrado (mapa inválido) posiciona no zero
+        pacman_x = pacman_y = 0;
+    }
+
+    /** Avança um frame da partida (IA + movimento). Não faz nada fora de jogo. */
+    public void tick() {
+        if (!inGame) return;
+        if (aiEnabled && agent != null && pacman_x % BLOCK_SIZE == 0 && pacman_y % BLOCK_SIZE == 0) {
+            thinkAI();
+        }
+        movePacman();
+    }
+
+    private void thinkAI() {
+        java.awt.Point nextMove = agent.decideNextMove();
+        req_dx = nextMove.x;
+        req_dy = nextMove.y;
+    }
+
+    /** Define a direção solicitada (teclado ou jogador remoto) */
+    public void requestDirection(int dx, int dy) {
+        req_dx = dx;
+        req_dy = dy;
+    }
+
+    /**
+     * Lógica de movimento do Pacman:
+     * - Verifica se está alinhado em bloco para processar mudança de direção
+     * - Coleta comida quando presente
+     * - Controla morte por tentar sair antes de liberar
+     * - Aplica penalidade de passo ao entrar em novo bloco
+     * - Verifica vitória ao entrar na saída liberada
+     */
+    private void movePacman() {
+        int prevCellCol = pacman_x / BLOCK_SIZE;  // Coluna anterior (antes de mover)
+        int prevCellRow = pacman_y / BLOCK_SIZE;  // Linha anterior
+
+        // Só processa paredes e coleta quando está centralizado num bloco
+        if (pacman_x % BLOCK_SIZE == 0 && pacman_y % BLOCK_SIZE == 0) {
+            int col = pacman_x / BLOCK_SIZE;
+            int row = pacman_y / BLOCK_SIZE;
+            int pos = row * COLS + col;
+            short cell = maze.levelData[pos];
+
+            // Se está em uma saída bloqueada -> morte por fome
+            if ((cell & EXIT_BIT) != 0 && !exitUnlocked) {
+                hungerDeath();
+                return; // Não processa mais este frame
+            }
+
+            // Coleta comida se houver
+            int f = maze.foodIndex[pos];
+            if (f >= 0 && (food[f >>> 6] & (1L << f)) != 0) {
+                food[f >>> 6] &= ~(1L << f);                  // Remove bit de comida
+                if (foodsLeft > 0) foodsLeft--;               // Decrementa contador
+                if (foodsLeft <= 0) {                        // Todas comidas coletadas
+                    foodsLeft = 0;
+                    if (!exitUnlocked) {
+                        exitUnlocked = true;                 // Libera saída
+                        if (debug) System.out.println("[DEBUG] Todas as comidas coletadas. Saída liberada!");
+                    }
+                }
+                score += FOOD_VALUE;                          // Atualiza pontuação
+                if (debug) System.out.println("[DEBUG] Comida coletada. Restam: " + foodsLeft);
+            }
+
+            // Tenta aplicar direção requisitada se não houver parede
+            if (req_dx != 0 || req_dy != 0) {
+                int nextRow = row + req_dy;
+                int nextCol = col + req_dx;
+                boolean canApply = true;
+                if (nextRow >= 0 && nextRow < ROWS && nextCol >=0 && nextCol < COLS) {
+                    int nPos = nextRow * COLS + nextCol;
+                    short nextCell = maze.levelData[nPos];
+                    // Se a próxima célula é saída bloqueada -> morre
+                    if ((nextCell & EXIT_BIT) != 0 && !exitUnlocked) {
+                        hungerDeath();
+                        return;
+                    }
+                    // Verifica paredes em relação à direção solicitada
+                    if ((req_dx == -1 && (cell & LEFT_BIT) != 0) ||
+                        (req_dx == 1  && (cell & RIGHT_BIT) != 0) ||
+                        (req_dy == -1 && (cell & TOP_BIT) != 0) ||
+                        (req_dy == 1  && (cell & BOTTOM_BIT) != 0)) {
+                        canApply = false; // Parede bloqueia troca de direção
+                    }
+                }
+                if (canApply) { // Aplica direção válida
+                    pacmand_x = req_dx; pacmand_y = req_dy;
+                }
+            }
+
+            // Verifica se direção atual bate numa parede e cancela se necessário
+            int targetRow = row + pacmand_y;
+            int targetCol = col + pacmand_x;
+            if ((pacmand_x == -1 && (cell & LEFT_BIT) != 0) ||
+                (pacmand_x == 1  && (cell & RIGHT_BIT) != 0) ||
+                (pacmand_y == -1 && (cell & TOP_BIT) != 0) ||
+                (pacmand_y == 1  && (cell & BOTTOM_BIT) != 0)) {
+                // Apenas loga se estava tentando mover
+                if (debug) {
+                    boolean L = (cell & LEFT_BIT) != 0, R = (cell & RIGHT_BIT) != 0, T = (cell & TOP_BIT) != 0, B = (cell & BOTTOM_BIT) != 0;
+                    System.out.println("[DEBUG] Movimento cancelado (parede). cell=("+row+","+col+") dir=("+pacmand_x+","+pacmand_y+") L="+L+" R="+R+" T="+T+" B="+B);
+                }
+                pacmand_x = pacmand_y = 0; // Para o movimento
+            } else if (targetRow >=0 && targetRow < ROWS && targetCol >=0 && targetCol < COLS) {
+                int tPos = targetRow * COLS + targetCol;
+                short tCell = maze.levelData[tPos];
+                if ((tCell & EXIT_BIT) != 0 && !exitUnlocked) { // Se destino é saída bloqueada
+                    hungerDeath();
+                    return;
+                }
+            }
+
+            // Vitória: entrou na saída depois de desbloqueada
+            if ((cell & EXIT_BIT) != 0 && exitUnlocked) {
+                onGameWon();
+            }
+        }
+        // Move em pixels de acordo com direção atual
+        pacman_x += PACMAN_SPEED * pacmand_x;
+        pacman_y += PACMAN_SPEED * pacmand_y;
+
+        // Penalidade de passo: só quando realmente entrou em outra célula
+        int newCellCol = pacman_x / BLOCK_SIZE;
+        int newCellRow = pacman_y / BLOCK_SIZE;
+        if ((pacmand_x != 0 || pacmand_y != 0) && (newCellCol != prevCellCol || newCellRow != prevCellRow)) {
+            score += STEP_PENALTY;
+            if (debug && LOG_STEPS) System.out.println("[DEBUG] Passo: score=" + score);
+        }
+        // Debug periódico de memória
+        if (debug) {
+            frameCounter++;
+            if (frameCounter % 300 == 0) logMemory();
+        }
+    }
+
+    /** Processa morte por tentar sair sem coletar todas as comidas */
+    private void hungerDeath() {
+        lives--;                         // Perde uma vida
+        hungerJustDied = true;           // Marca para exibir mensagem específica
+        if (debug) System.out.println("[DEBUG] Morte por fome! Vidas restantes: " + lives);
+        if (lives <= 0) {                // Game over
+            inGame = false;
+            gameWon = false;
+        } else {                         // Reinicia posição
+            placePacman();
+        }
+        pacmand_x = pacmand_y = 0;
+        req_dx = req_dy = 0;
+    }
+
+    /** Marca estado de vitória e aplica bônus */
+    private void onGameWon() {
+        if (!gameWon) {
+            if (debug) System.out.println("[DEBUG] Vitória: foodsLeft="+foodsLeft+", exitUnlocked="+exitUnlocked);
+            score += WIN_BONUS;          // Aplica bônus final
+            gameWon = true;
+            inGame = false;              // Pausa o jogo
+        }
+    }
+
+    /** Log simples de memória usada para depuração */
+    private void logMemory() {
+        Runtime rt = Runtime.getRuntime();
+        long used = (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
+        System.out.println("[DEBUG] Memória usada: " + used + " MB");
+    }
+
+    // ===================== ESTADO (leitura) =====================
+    public Maze getMaze() { return maze; }
+    public boolean isDebug() { return debug; }
+    public boolean isInGame() { return inGame; }
+    public boolean isGameWon() { return gameWon; }
+    public int getScore() { return score; }
+    public int getLives() { return lives; }
+    public int getFoodsLeft() { return foodsLeft; }
+    public int getTotalFood() { return maze.totalFood; }
+    public int getPacmanX() { return pacman_x; }
+    public int getPacmanY() { return pacman_y; }
+    public int getReqDx() { return req_dx; }
+    public int getReqDy() { return req_dy; }
+    public boolean isAiEnabled() { return aiEnabled; }
+    public void setAiEnabled(boolean aiEnabled) { this.aiEnabled = aiEnabled; }
+
+    /** Indica (e consome) a mensagem de morte por fome recém ocorrida */
+    public boolean consumeHungerJustDied() {
+        boolean d = hungerJustDied;
+        hungerJustDied = false;
+        return d;
+    }
+
+    /** Quantidade de palavras (long) do bitset de comidas */
+    public int foodWords() { return food.length; }
+
+    /** Palavra i do bitset de comidas (bit j = comida 64*i+j ainda presente) */
+    public long foodWord(int i) { return food[i]; }
+
+    /** Se a célula (índice linear) ainda contém comida nesta partida */
+    public boolean hasFood(int pos) {
+        int f = maze.foodIndex[pos];
+        return f >= 0 && (food[f >>> 6] & (1L << f)) != 0;
+    }
+
+    // ===================== API PARA AGENTE =====================
+    public int getRows() { return ROWS; }
+    public int getCols() { return COLS; }
+    public int getPacmanRow() { return pacman_y / BLOCK_SIZE; }
+    public int getPacmanCol() { return pacman_x / BLOCK_SIZE; }
+    public boolean isExitUnlocked() { return exitUnlocked; }
+
+    public boolean canMoveBetween(int r, int c, int nr, int nc) {
+        if (nr < 0 || nr >= ROWS || nc < 0 || nc >= COLS) return false;
+        short cell = maze.levelData[r * COLS + c];
+        int dr = nr - r, dc = nc - c;
+        if (dc == -1 && (cell & LEFT_BIT) != 0) return false;
+        if (dc ==  1 && (cell & RIGHT_BIT) != 0) return false;
+        if (dr == -1 && (cell & TOP_BIT) != 0) return false;
+        return dr != 1 || (cell & BOTTOM_BIT) == 0;
+    }
+
+    // ===================== SENSOR =====================
+    /**
+     * Retorna uma matriz 3x3 de caracteres representando o sensor do agente.
+     * As 8 posições de borda indicam o conteúdo do labirinto relativo à posição atual
+     * do agente: 'X' (parede ou fora do mapa), 'o' (comida), '_' (corredor vazio),
+     * 'E' (entrada) e 'S' (saída). A posição (2,2) contém a orientação do agente:
+     * 'N' (norte), 'S' (sul), 'L' (leste) ou 'O' (oeste).
+     * Mapeamento (lin/col) relativo ao agente:
+     * (0,0) NW  (0,1) N   (0,2) NE
+     * (1,0) W   (1,1) C   (1,2) E
+     * (2,0) SW  (2,1) S   (2,2) ORIENTAÇÃO
+     */
+    public char[][] getSensor() {
+        char[][] s = new char[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                s[i][j] = sensorAt(i, j);
+            }
+        }
+        return s;
+    }
+
+    /** Posição (i,j) do sensor 3x3 sem criar a matriz (mesmo conteúdo de getSensor()[i][j]) */
+    public char sensorAt(int i, int j) {
+        // (2,2) contém a orientação do agente
+        if (i == 2 && j == 2) return orientationChar();
+        // Demais posições: conteúdo do mapa relativo à célula atual (centro (1,1) = célula atual)
+        return cellCharAt(pacman_y / BLOCK_SIZE + i - 1, pacman_x / BLOCK_SIZE + j - 1);
+    }
+
+    /** Converte a célula (r,c) em um caractere de exibição para o sensor. */
+    public char cellCharAt(int r, int c) {
+        // Fora dos limites é tratado como parede 'X'
+        if (r < 0 || r >= ROWS || c < 0 || c >= COLS) return 'X';
+        char raw = maze.map[r][c];
+        if (raw == 'X') return 'X';      // parede sólida
+        if (raw == 'E') return 'E';      // entrada
+        if (raw == 'S') return 'S';      // saída
+        // Caso contrário, aberto: consulta se ainda há comida nesta célula no estado atual
+        if (hasFood(r * COLS + c)) return 'o';
+        return '_';
+    }
+
+    /** Determina o caractere de orientação do agente. */
+    public char orientationChar() {
+        int dx = req_dx != 0 || req_dy != 0 ? req_dx : pacmand_x;
+        int dy = req_dx != 0 || req_dy != 0 ? req_dy : pacmand_y;
+        if (dx == -1) return 'O'; // Oeste
+        if (dx == 1)  return 'L'; // Leste
+        if (dy == -1) return 'N'; // Norte
+        if (dy == 1)  return 'S'; // Sul
+        // Parado: mantém um padrão (N)
+        return 'N';
+    }
+}
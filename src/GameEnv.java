@@ -0,0 +1,142 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Ambiente estilo "gym" sobre o núcleo do jogo: reset() / step(ação).
+ *
+ * Cada step aplica a ação e avança o jogo até o Pacman ficar alinhado no próximo bloco
+ * (ou parar numa parede), ou seja, um step = um movimento de célula.
+ * A observação é escrita sempre no mesmo ByteBuffer (direto ou mapeado em arquivo),
+ * sem criar objetos, no layout abaixo (little-endian):
+ *
+ * <pre>
+ *  0  byte[9]  sensor 3x3 por linhas ('X','o','_','E','S'; posição 8 = orientação)
+ *  9  byte     vidas
+ * 10  byte     flags: 1 = saída liberada, 2 = fim de partida, 4 = vitória
+ * 11  byte     (reservado)
+ * 12  int      linha do Pacman
+ * 16  int      coluna do Pacman
+ * 20  int      pontuação
+ * 24  int      recompensa do último step (variação da pontuação)
+ * 28  int      comidas restantes
+ * 32  long[]   bitset de comidas restantes (ver Maze.foodIndex)
+ * </pre>
+ */
+public class GameEnv {
+
+    // Ações
+    public static final int ACTION_NONE  = 0;
+    public static final int ACTION_LEFT  = 1;
+    public static final int ACTION_RIGHT = 2;
+    public static final int ACTION_UP    = 3;
+    public static final int ACTION_DOWN  = 4;
+    public static final int ACTION_COUNT = 5;
+
+    private static final int[] ACTION_DX = {0, -1, 1, 0, 0};
+    private static final int[] ACTION_DY = {0, 0, 0, -1, 1};
+
+    // Layout da observação
+    public static final int OFF_SENSOR = 0;
+    public static final int OFF_LIVES  = 9;
+    public static final int OFF_FLAGS  = 10;
+    public static final int OFF_ROW    = 12;
+    public static final int OFF_COL    = 16;
+    public static final int OFF_SCORE  = 20;
+    public static final int OFF_REWARD = 24;
+    public static final int OFF_FOODS  = 28;
+    public static final int OFF_FOOD_BITS = 32;
+
+    public static final int FLAG_EXIT_UNLOCKED = 1;
+    public static final int FLAG_DONE          = 2;
+    public static final int FLAG_WON           = 4;
+
+    // Limite de frames por step (um bloco = BLOCK_SIZE / velocidade frames)
+    private static final int MAX_FRAMES_PER_STEP = Game.BLOCK_SIZE;
+
+    private final Game game;
+    private final ByteBuffer obs;
+    private final int base;          // Início desta observação no buffer
+    private int lastReward;
+
+    /** Ambiente com buffer direto próprio */
+    public GameEnv(Maze maze) {
+        this(maze, ByteBuffer.allocateDirect(observationSize(maze)).order(ByteOrder.LITTLE_ENDIAN), 0);
+    }
+
+    /** Ambiente que escreve a observação em {@code buffer} a partir de {@code base} (lotes/arquivo mapeado) */
+    public GameEnv(Maze maze, ByteBuffer buffer, int base) {
+        if (buffer.capacity() - base < observationSize(maze)) throw new IllegalArgumentException("buffer pequeno");
+        this.game = new Game(maze, false);
+        this.game.setAiEnabled(false);
+        this.obs = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.base = base;
+    }
+
+    /** Tamanho em bytes de uma observação para o labirinto (múltiplo de 8) */
+    public static int observationSize(Maze maze) {
+        return OFF_FOOD_BITS + 8 * ((maze.totalFood + 63) >>> 6);
+    }
+
+    /** Reinicia a partida e escreve a observação inicial */
+    public ByteBuffer reset() {
+        game.start();
+        lastReward = 0;
+        writeObservation();
+        return obs;
+    }
+
+    /**
+     * Aplica a ação (ACTION_*) e avança até o próximo alinhamento em bloco.
+     * Retorna a recompensa (variação da pontuação); a observação fica no buffer.
+     * Ação fora de [0, ACTION_COUNT) gera IllegalArgumentException (o VectorEnv, que lê
+     * ações de um buffer externo, troca essas por ACTION_NONE antes de chamar).
+     */
+    public int step(int action) {
+        if (action < 0 || action >= ACTION_COUNT) throw new IllegalArgumentException("ação inválida: " + action);
+        int before = game.getScore();
+        if (game.isInGame()) {
+            game.requestDirection(ACTION_DX[action], ACTION_DY[action]);
+            int frames = 0;
+            do {
+                game.tick();
+                frames++;
+            } while (game.isInGame() && frames < MAX_FRAMES_PER_STEP
+                    && (game.getPacmanX() % Game.BLOCK_SIZE != 0 || game.getPacmanY() % Game.BLOCK_SIZE != 0));
+        }
+        lastReward = game.getScore() - before;
+        writeObservation();
+        return lastReward;
+    }
+
+    /** Se a partida terminou (vitória ou sem vidas) */
+    public boolean isDone() { return !game.isInGame(); }
+
+    public ByteBuffer observation() { return obs; }
+
+    public Game getGame() { return game; }
+
+    private void writeObservation() {
+        int row = game.getPacmanRow();
+        int col = game.getPacmanCol();
+        int p = base + OFF_SENSOR;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                obs.put(p++, (byte) game.cellCharAt(row + dr, col + dc));
+            }
+        }
+        obs.put(base + OFF_SENSOR + 8, (byte) game.orientationChar()); // (2,2) = orientação, como no sensor
+        obs.put(base + OFF_LIVES, (byte) game.getLives());
+        int flags = (game.isExitUnlocked() ? FLAG_EXIT_UNLOCKED : 0)
+                | (game.isInGame() ? 0 : FLAG_DONE)
+                | (game.isGameWon() ? FLAG_WON : 0);
+        obs.put(base + OFF_FLAGS, (byte) flags);
+        obs.putInt(base + OFF_ROW, row);
+        obs.putInt(base + OFF_COL, col);
+        obs.putInt(base + OFF_SCORE, game.getScore());
+        obs.putInt(base + OFF_REWARD, lastReward);
+        obs.putInt(base + OFF_FOODS, game.getFoodsLeft());
+        for (int i = 0, n = game.foodWords(); i < n; i++) {
+            obs.putLong(base + OFF_FOOD_BITS + 8 * i, game.foodWord(i));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Base das estratégias de busca em grade e as três implementações usadas pelo portfólio:
+ *
+ * - {@link AStar}: A* com heurística = menor distância Manhattan a um dos alvos; bom em
+ *   mapas pequenos e com poucos alvos (o custo da heurística cresce com o número de alvos)
+ * - {@link Bfs}: busca em largura que para no primeiro alvo; não depende do número de alvos,
+ *   então costuma ganhar em "o mais próximo de muitos" (fronteiras, comidas)
+ * - {@link Bidirectional}: A* bidirecional em duas threads ({@link ParallelAStar}); só para
+ *   um alvo e com mais de um núcleo, vale em caminhos longos
+ *
+ * Os alvos são marcados num vetor com carimbo por consulta (sem limpar entre buscas) e os
+ * vetores da busca vêm de {@link SearchBuffers}, um conjunto por thread.
+ */
+public abstract class GridPlanner implements Planner {
+
+    static final int[] DX = {0, 0, 1, -1};
+    static final int[] DY = {-1, 1, 0, 0};
+    private static final int CHECK_MASK = 31;      // Confere interrupção a cada 32 células
+
+    final int rows, cols;
+    final ParallelAStar.Moves moves;
+    private final int[] goalMark;                  // Consulta em que a célula é alvo
+    private int query;
+    int[] path = new int[64];
+
+    GridPlanner(int rows, int cols, ParallelAStar.Moves moves) {
+        this.rows = rows;
+        this.cols = cols;
+        this.moves = moves;
+        this.goalMark = new int[rows * cols];
+    }
+
+    @Override public int[] path() {
+        return path;
+    }
+
+    void markGoals(int[] goals, int goalCount) {
+        if (++query == 0) {
+            java.util.Arrays.fill(goalMark, 0);
+            query = 1;
+        }
+        for (int i = 0; i < goalCount; i++) goalMark[goals[i]] = query;
+    }
+
+    boolean isGoal(int cell) {
+        return goalMark[cell] == query;
+    }
+
+    /** Se a thread foi interrompida (conferido a cada poucas células expandidas) */
+    static boolean cancelled(int expanded) {
+        return (expanded & CHECK_MASK) == 0 && Thread.currentThread().isInterrupted();
+    }
+
+    /** Reconstrói o caminho (sem a origem) a partir das direções de chegada */
+    int buildPath(SearchBuffers b, int goal) {
+        int len = b.g[goal];
+        if (path.length < len) path = new int[Math.max(len, path.length * 2)];
+        int cur = goal;
+        for (int i = len - 1; i >= 0; i--) {
+            path[i] = cur;
+            int d = b.parentDir[cur];
+            cur -= DY[d] * cols + DX[d];
+        }
+        return len;
+    }
+
+    static int dist(int r1, int c1, int r2, int c2) {
+        return Math.abs(r1 - r2) + Math.abs(c1 - c2);
+    }
+
+    /** A* para vários alvos: h = menor Manhattan até um deles (admissível e consistente) */
+    public static final class AStar extends GridPlanner {
+
+        private int[] goalRows = new int[16], goalCols = new int[16];
+        private int goalCount;
+
+        public AStar(int rows, int cols, ParallelAStar.Moves moves) {
+            super(rows, cols, moves);
+        }
+
+        @Override public String name() {
+            return "astar";
+        }
+
+        @Override public int search(int start, int[] goals, int goalCount) {
+            if (goalCount == 0) return NO_PATH;
+            markGoals(goals, goalCount);
+            if (goalRows.length < goalCount) {
+                goalRows = new int[goalCount];
+                goalCols = new int[goalCount];
+            }
+            for (int i = 0; i < goalCount; i++) {
+                goalRows[i] = goals[i] / cols;
+                goalCols[i] = goals[i] % cols;
+            }
+            this.goalCount = goalCount;
+
+            SearchBuffers b = SearchBuffers.get(rows * cols);
+            b.begin();
+            b.g[start] = 0;
+            b.f[start] = heuristic(start / cols, start % cols);
+            b.parentDir[start] = -1;
+            b.push(start);
+            int expanded = 0;
+
+            while (!b.isEmpty()) {
+                if (cancelled(++expanded)) return CANCELLED;
+                int cur = b.pop();
+                b.close(cur);
+                if (isGoal(cur)) return buildPath(b, cur);
+
+                int r = cur / cols, c = cur % cols;
+                for (int i = 0; i < 4; i++) {
+                    int nr = r + DY[i];
+                    int nc = c + DX[i];
+                    if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                    int np = nr * cols + nc;
+                    if (b.closed(np) || !moves.allowed(r, c, nr, nc)) continue;
+
+                    int g = b.g[cur] + 1;
+                    if (!b.seen(np) || g < b.g[np]) {
+                        b.g[np] = g;
+                        b.f[np] = g + heuristic(nr, nc);
+                        b.parentDir[np] = (byte) i;
+                        b.push(np);
+                    }
+                }
+            }
+            return NO_PATH;
+        }
+
+        private int heuristic(int r, int c) {
+            int best = Integer.MAX_VALUE;
+            for (int i = 0; i < goalCount; i++) {
+                best = Math.min(best, dist(r, c, goalRows[i], goalCols[i]));
+            }
+            return best;
+        }
+    }
+
+    /** Busca em largura até o primeiro alvo (o heap dos buffers serve de fila) */
+    public static final class Bfs extends GridPlanner {
+
+        public Bfs(int rows, int cols, ParallelAStar.Moves moves) {
+            super(rows, cols, moves);
+        }
+
+        @Override public String name() {
+            return "bfs";
+        }
+
+        @Override public int search(int start, int[] goals, int goalCount) {
+            if (goalCount == 0) return NO_PATH;
+            markGoals(goals, goalCount);
+            SearchBuffers b = SearchBuffers.get(rows * cols);
+            int[] queue = b.heap;
+            b.begin();
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            b.mark(start);
+            b.g[start] = 0;
+            while (head < tail) {
+                if (cancelled(head + 1)) return CANCELLED;
+                int cur = queue[head++];
+                if (isGoal(cur)) return buildPath(b, cur);
+                int r = cur / cols, c = cur % cols;
+                for (int i = 0; i < 4; i++) {
+                    int nr = r + DY[i];
+                    int nc = c + DX[i];
+                    if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                    int np = nr * cols + nc;
+                    if (b.seen(np) || !moves.allowed(r, c, nr, nc)) continue;
+                    b.mark(np);
+                    b.g[np] = b.g[cur] + 1;
+                    b.parentDir[np] = (byte) i;
+                    queue[tail++] = np;
+                }
+            }
+            return NO_PATH;
+        }
+    }
+
+    /**
+     * A* bidirecional em duas threads; só atende consultas com um único alvo e quando há
+     * núcleo para a segunda thread (num núcleo só seria o A* com o custo da troca de thread)
+     */
+    public static final class Bidirectional extends GridPlanner {
+
+        private ParallelAStar search;      // Criado na primeira consulta
+
+        public Bidirectional(int rows, int cols, ParallelAStar.Moves moves) {
+            super(rows, cols, moves);
+        }
+
+        @Override public String name() {
+            return "bidirectional";
+        }
+
+        @Override public int search(int start, int[] goals, int goalCount) {
+            if (goalCount != 1 || !ParallelAStar.available()) return UNSUPPORTED;
+            if (search == null) search = new ParallelAStar(rows, cols, moves);
+            int len = search.search(start, goals[0]);
+            if (Thread.currentThread().isInterrupted()) return CANCELLED;
+            path = search.path();
+            return len < 0 ? NO_PATH : len;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memória do agente entre partidas no mesmo labirinto, em disco.
+ *
+ * Um arquivo por labirinto ({@code <diretório>/<hash do mapa>.know}) mapeado em memória,
+ * com 2 bits por célula: desconhecida, aberta, parede ou saída. Só a topologia é guardada;
+ * comidas não, pois cada partida começa com todas e o agente precisa senti-las.
+ *
+ * As escritas vão direto para o mapeamento (o sistema operacional grava as páginas) e
+ * só acrescentam informação: uma célula nunca troca de tipo no mesmo labirinto. Agentes
+ * em threads diferentes compartilham a mesma instância; uma escrita concorrente no mesmo
+ * byte pode perder o registro de uma célula (reaprendida depois), mas nunca corrompê-lo.
+ *
+ * Layout: magic, versão, linhas, colunas (int little-endian), depois 4 células por byte.
+ */
+public class KnowledgeStore {
+
+    public static final int UNKNOWN = 0;
+    public static final int OPEN = 1;
+    public static final int WALL = 2;
+    public static final int EXIT = 3;
+
+    private static final int MAGIC = 0x54534B4E;   // "TSKN"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    private static final String SUFFIX = ".know";
+
+    // Uma instância por arquivo, compartilhada por todos os agentes do processo
+    private static final ConcurrentHashMap<String, KnowledgeStore> OPEN_STORES = new ConcurrentHashMap<>();
+
+    public final int rows, cols;
+    private final String path;             // Chave em OPEN_STORES
+    private final MappedByteBuffer data;
+    private int users;                     // open() sem release() correspondente (alterado só dentro do compute)
+
+    private KnowledgeStore(String path, int rows, int cols, MappedByteBuffer data) {
+        this.path = path;
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+    }
+
+    /**
+     * Abre (ou cria) a memória do labirinto em {@code dir}; cada chamada conta um usuário e
+     * deve ter um {@link #release()} correspondente.
+     * Devolve null se o arquivo não puder ser usado; o agente segue sem memória.
+     */
+    public static KnowledgeStore open(String dir, Maze maze) {
+        File file = new File(dir, maze.analysis.hashHex() + SUFFIX);
+        return OPEN_STORES.compute(file.getAbsolutePath(), (path, s) -> {
+            if (s == null) s = map(file, maze.rows, maze.cols);
+            if (s != null) s.users++;
+            return s;
+        });
+    }
+
+    private static KnowledgeStore map(File file, int rows, int cols) {
+        File parent = file.getParentFile();
+        if (parent != null) parent.mkdirs();
+        long size = HEADER + ((long) rows * cols + 3) / 4;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel ch = raf.getChannel()) {
+            boolean fresh = raf.length() != size;
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size); // Continua válido após fechar
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (!fresh && (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION
+                    || buf.getInt(8) != rows || buf.getInt(12) != cols)) {
+                fresh = true;
+            }
+            if (fresh) { // Arquivo novo ou de outro formato: começa sem conhecimento
+                for (int i = HEADER; i < size; i++) buf.put(i, (byte) 0);
+                buf.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, rows).putInt(12, cols);
+            }
+            return new KnowledgeStore(file.getAbsolutePath(), rows, cols, buf);
+        } catch (IOException e) {
+            System.out.println("Memória do agente indisponível: " + file + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    /**
+     * Solta um usuário (ex.: ao sair de um nível). Com o último, tira a instância do cache do
+     * processo e grava as páginas alteradas no disco; o próximo {@link #open} mapeia o
+     * arquivo de novo, com o que já foi aprendido. Enquanto outro nível usar o mesmo
+     * labirinto (pacote que repete o mapa ou volta ao início), a instância continua aberta.
+     */
+    public void release() {
+        boolean[] last = new boolean[1];
+        OPEN_STORES.computeIfPresent(path, (p, s) -> {
+            if (s != this || --users > 0) return s;
+            last[0] = true;
+            return null;
+        });
+        if (last[0]) data.force();
+    }
+
+    /** Tipo registrado da célula (UNKNOWN, OPEN, WALL ou EXIT) */
+    public int get(int cell) {
+        return data.get(HEADER + (cell >>> 2)) >> ((cell & 3) << 1) & 3;
+    }
+
+    /** Registra o tipo da célula (se ainda não registrado) */
+    public void put(int cell, int kind) {
+        int at = HEADER + (cell >>> 2);
+        int shift = (cell & 3) << 1;
+        byte b = data.get(at);
+        if ((b >> shift & 3) != UNKNOWN) return;
+        data.put(at, (byte) (b | kind << shift));
+    }
+
+    /** Tipo a registrar para um caractere do conhecimento do agente ('?' = UNKNOWN) */
+    public static int kindOf(char c) {
+        switch (c) {
+            case '?': return UNKNOWN;
+            case 'X': return WALL;
+            case 'S': return EXIT;
+            default:  return OPEN;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequência de níveis jogados em ordem (e de novo do primeiro depois do último).
+ *
+ * O pacote é um arquivo de texto com um nível por linha ('#' inicia comentário):
+ * - nome de recurso do labirinto (ex.: "resources/maze.txt", ver {@link Assets#find})
+ * - ou "gen:LINHASxCOLUNAS:COMIDAS:CICLOS:SEMENTE" para gerar com {@link MazeGenerator}
+ *
+ * Cada nível é preparado por inteiro numa thread de pré-carga enquanto o anterior é
+ * jogado: leitura e validação do mapa, análise/levelData ({@link Maze}), partida e agente
+ * com as estruturas já dimensionadas e a memória ({@link KnowledgeStore}) já carregada.
+ * Ao vencer, {@link #advance()} só entrega o nível pronto e agenda o seguinte.
+ * Níveis inválidos (mapa ilegível ou sem 'E') são pulados com um aviso.
+ */
+public class LevelPack implements AutoCloseable {
+
+    public static final String PROPERTY = "teseu.levels";            // Pacote alternativo
+    public static final String DEFAULT_PACK = "resources/levels.txt";
+    public static final String DEFAULT_MAZE = "resources/maze.txt";  // Usado se não houver pacote
+    private static final String GENERATED = "gen:";
+    private static final int CLOSE_WAIT_SECONDS = 5;  // Espera da pré-carga no close()
+
+    /** Nível pronto para jogar: o Model só troca as referências */
+    public static final class Level {
+        public final int index;             // Posição no pacote
+        public final String name;
+        public final Maze maze;
+        public final Game game;
+        public final Agent agent;
+
+        Level(int index, String name, Maze maze, Game game, Agent agent) {
+            this.index = index;
+            this.name = name;
+            this.maze = maze;
+            this.game = game;
+            this.agent = agent;
+        }
+
+        /**
+         * Encerra o nível que deixou de ser jogado: para a partida, desliga o agente dela e
+         * solta os planejadores e a memória dele (com o último nível do mesmo labirinto, ela é
+         * gravada no disco e sai do cache de {@link KnowledgeStore}, que de outro modo
+         * guardaria um mapeamento por labirinto).
+         */
+        public void release() {
+            game.stop();
+            game.setAgent(null);
+            agent.release();
+        }
+    }
+
+    private final List<String> names;
+    private final String knowledgeDir;
+    private final boolean debug;
+    private final ExecutorService preload = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "level-preload");
+        t.setDaemon(true);
+        return t;
+    });
+    private Level current;
+    private Future<Level> next;             // Nível seguinte sendo preparado
+
+    /** Começa a preparar o primeiro nível; {@link #current()} espera por ele */
+    public LevelPack(List<String> names, String knowledgeDir, boolean debug) {
+        if (names.isEmpty()) throw new IllegalArgumentException("pacote de níveis vazio");
+        this.names = List.copyOf(names);
+        this.knowledgeDir = knowledgeDir;
+        this.debug = debug;
+        this.next = preload.submit(() -> prepareFrom(0));
+    }
+
+    /**
+     * Pacote da propriedade {@link #PROPERTY} ou {@link #DEFAULT_PACK}; sem nenhum dos dois,
+     * um pacote de um nível só com {@link #DEFAULT_MAZE}.
+     */
+    public static LevelPack fromSystemProperty(String knowledgeDir, boolean debug) {
+        String pack = System.getProperty(PROPERTY, DEFAULT_PACK);
+        URL url = Assets.find(pack);
+        List<String> names = url == null ? null : readNames(url);
+        if (names == null || names.isEmpty()) {
+            if (!pack.equals(DEFAULT_PACK)) System.out.println("[AVISO] Pacote de níveis não encontrado: " + pack);
+            names = List.of(DEFAULT_MAZE);
+        }
+        return new LevelPack(names, knowledgeDir, debug);
+    }
+
+    private static List<String> readNames(URL url) {
+        List<String> names = new ArrayList<>();
+        try (InputStream in = url.openStream(); Scanner scanner = new Scanner(in, StandardCharsets.UTF_8)) {
+            while (scanner.hasNextLine()) {
+                String line = scanner.nextLine();
+                int comment = line.indexOf('#');
+                if (comment >= 0) line = line.substring(0, comment);
+                line = line.trim();
+                if (!line.isEmpty()) names.add(line);
+            }
+        } catch (IOException e) {
+            System.out.println("[AVISO] Pacote de níveis ilegível: " + url + " (" + e.getMessage() + ")");
+            return null;
+        }
+        return names;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /** Nível atual (na primeira chamada, espera a preparação do primeiro) */
+    public Level current() {
+        if (current == null) {
+            current = await(next);
+            next = size() > 1 ? preload.submit(() -> prepareFrom((current.index + 1) % size())) : null;
+        }
+        return current;
+    }
+
+    /**
+     * Passa para o próximo nível e começa a preparar o seguinte. Só espera se a pré-carga
+     * ainda não terminou; com um nível só, devolve o mesmo. O nível anterior é encerrado
+     * ({@link Level#release()}) na thread de pré-carga, antes da preparação do seguinte, para
+     * que a gravação da memória no disco não atrase o jogo; quem chama não pode mais usá-lo.
+     */
+    public Level advance() {
+        if (current == null) current();
+        if (next == null) return current;
+        Level previous = current;
+        current = await(next);
+        preload.execute(previous::release);
+        next = preload.submit(() -> prepareFrom((current.index + 1) % size()));
+        return current;
+    }
+
+    private static Level await(Future<Level> f) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return f.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Falha ao preparar nível", e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Primeiro nível válido a partir de {@code start}; se nenhum for, o labirinto de reserva */
+    private Level prepareFrom(int start) {
+        for (int i = 0; i < size(); i++) {
+            int index = (start + i) % size();
+            Level level = prepare(index, names.get(index));
+            if (level != null) return level;
+        }
+        System.out.println("[AVISO] Nenhum nível válido no pacote. Usando fallback.");
+        return warm(start, "fallback", fallbackMaze());
+    }
+
+    private Level prepare(int index, String name) {
+        long t0 = System.nanoTime();
+        Maze maze = loadMaze(name);
+        if (maze == null) {
+            System.out.println("[AVISO] Nível " + (index + 1) + " ignorado: labirinto inválido (" + name + ")");
+            return null;
+        }
+        if (maze.startRow < 0) {
+            System.out.println("[AVISO] Nível " + (index + 1) + " ignorado: sem entrada 'E' (" + name + ")");
+            return null;
+        }
+        if (!maze.analysis.solvable) {
+            System.out.println("[AVISO] Nível " + (index + 1) + " sem solução: E, comidas e S não estão conectados.");
+        }
+        Level level = warm(index, name, maze);
+        if (debug) System.out.printf("[NIVEL] %d/%d pronto (%s, %dx%d) em %.1f ms%n",
+                index + 1, size(), name, maze.rows, maze.cols, (System.nanoTime() - t0) / 1e6);
+        return level;
+    }
+
+    /** Partida e agente do nível, com a memória do agente já carregada */
+    private Level warm(int index, String name, Maze maze) {
+        Game game = new Game(maze, debug);
+        Agent agent = new Agent(game);
+        game.setAgent(agent);
+        agent.setKnowledgeStore(KnowledgeStore.open(knowledgeDir, maze));
+        agent.reset();
+        return new Level(index, name, maze, game, agent);
+    }
+
+    /** Labirinto do nível: recurso ou gerado ("gen:..."); null se inválido */
+    static Maze loadMaze(String name) {
+        if (name.startsWith(GENERATED)) {
+            String[] p = name.substring(GENERATED.length()).split(":");
+            try {
+                String[] size = p[0].split("x");
+                return Maze.of(MazeGenerator.generate(Integer.parseInt(size[0]), Integer.parseInt(size[1]),
+                        Integer.parseInt(p[1]), Double.parseDouble(p[2]), Long.parseLong(p[3])));
+            } catch (RuntimeException e) {   // Especificação malformada
+                return null;
+            }
+        }
+        URL url = Assets.find(name);
+        return url == null ? null : Maze.load(url);
+    }
+
+    private static Maze fallbackMaze() {
+        String[] fallback = {
+                "XXXX",
+                "XEXX",
+                "XoSX",
+                "XXXX"
+        };
+        char[][] fb = new char[fallback.length][];
+        for (int i = 0; i < fallback.length; i++) fb[i] = fallback[i].toCharArray();
+        return Maze.of(fb);
+    }
+
+    /**
+     * Encerra o pacote: deixa a pré-carga terminar o que já está na fila (o encerramento do
+     * nível anterior e a preparação do seguinte), até {@link #CLOSE_WAIT_SECONDS}, e então
+     * encerra o nível atual e o já preparado. Se a pré-carga não terminar a tempo, ela é
+     * interrompida e o nível em preparação é abandonado.
+     */
+    @Override
+    public void close() {
+        preload.shutdown();
+        boolean interrupted = false;
+        try {
+            if (!preload.awaitTermination(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS)) preload.shutdownNow();
+        } catch (InterruptedException e) {
+            preload.shutdownNow();
+            interrupted = true;
+        }
+        if (next != null && next.isDone() && !next.isCancelled()) {
+            try {
+                await(next).release();
+            } catch (IllegalStateException e) {
+                // Preparação falhou: não há nível para encerrar
+            }
+        }
+        if (current != null) current.release();
+        next = null;
+        current = null;
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
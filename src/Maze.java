@@ -0,0 +1,84 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+
+/**
+ * Labirinto imutável e compartilhável entre várias partidas.
+ * Guarda o mapa de caracteres, o levelData (bits por célula) e um índice de comidas:
+ * cada célula com comida recebe um número sequencial, usado pelo bitset de comidas
+ * de cada partida (Game). Assim o estado por partida fica pequeno.
+ */
+public class Maze {
+
+    public final char[][] map;             // Mapa original (não alterar)
+    public final int rows, cols;
+    public final short[] levelData;        // Bits de parede/comida/saída (não alterar)
+    public final MazeAnalysis analysis;
+    public final int startRow, startCol;   // Posição de 'E' (-1 se ausente)
+    public final int exitRow, exitCol;     // Posição de 'S' (-1 se ausente)
+    public final int totalFood;
+    public final int[] foodIndex;          // célula -> número da comida (-1 = sem comida)
+    public final int[] foodCells;          // número da comida -> célula
+
+    public Maze(char[][] map, MazeAnalysis analysis) {
+        this.map = map;
+        this.analysis = analysis;
+        this.rows = analysis.rows;
+        this.cols = analysis.cols;
+        this.levelData = analysis.levelData;
+        this.startRow = analysis.startRow;
+        this.startCol = analysis.startCol;
+        this.exitRow = analysis.exitRow;
+        this.exitCol = analysis.exitCol;
+
+        this.foodIndex = new int[rows * cols];
+        int count = 0;
+        for (int i = 0; i < levelData.length; i++) {
+            foodIndex[i] = (levelData[i] & MazeAnalysis.FOOD_BIT) != 0 ? count++ : -1;
+        }
+        this.totalFood = count;
+        this.foodCells = new int[count];
+        for (int i = 0; i < levelData.length; i++) {
+            if (foodIndex[i] >= 0) foodCells[foodIndex[i]] = i;
+        }
+    }
+
+    /** Carrega e analisa um labirinto de arquivo; retorna null se o arquivo for inválido */
+    public static Maze load(String filePath) {
+        char[][] m = Map.loadMap(filePath);
+        if (m == null || m.length == 0) return null;
+        return new Maze(m, MazeAnalysis.analyze(m, new File(filePath).isFile() ? filePath : null));
+    }
+
+    /**
+     * Carrega de um recurso (ver {@link Assets#find}). Se o recurso for um arquivo comum,
+     * usa {@link #load(String)} e o cache de análise ao lado dele; dentro de um jar, analisa.
+     */
+    public static Maze load(URL url) {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return load(new File(url.toURI()).getPath());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // Segue pelo fluxo
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            char[][] m = Map.loadMap(in);
+            return m == null ? null : of(m);
+        } catch (IOException e) {
+            System.out.println("Labirinto ilegível: " + url + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    /** Cria um labirinto a partir de um mapa em memória (sem cache de análise) */
+    public static Maze of(char[][] map) {
+        return new Maze(map, MazeAnalysis.analyze(map, null));
+    }
+
+    public boolean isWall(int r, int c) {
+        return r < 0 || r >= rows || c < 0 || c >= cols || map[r][c] == 'X';
+    }
+}
@@ -0,0 +1,407 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Análise do labirinto feita no carregamento:
+ * - Bits de parede por célula (mesmo formato do levelData do Model)
+ * - Componentes conexos das células abertas
+ * - Veredito de alcançabilidade (E, todas as comidas e S no mesmo componente, sem passar por S:
+ *   a saída fica bloqueada até as comidas acabarem e pisar nela encerra o nível)
+ * - Classificação de células: beco sem saída, corredor ou junção
+ *
+ * O trabalho é dividido em faixas de linhas processadas em paralelo (fork-join).
+ * O resultado é salvo ao lado do arquivo do mapa, identificado pelo hash do conteúdo,
+ * para que recarregar o mesmo labirinto não refaça a análise.
+ */
+public class MazeAnalysis {
+
+    // Mesmos bits usados pelo Model
+    public static final short LEFT_BIT   = 1;
+    public static final short TOP_BIT    = 2;
+    public static final short RIGHT_BIT  = 4;
+    public static final short BOTTOM_BIT = 8;
+    public static final short FOOD_BIT   = 16;
+    public static final short EXIT_BIT   = 32;
+
+    // Classificação das células abertas (número de vizinhos abertos)
+    public static final byte WALL      = 0;
+    public static final byte ISOLATED  = 1;  // nenhum vizinho aberto
+    public static final byte DEAD_END  = 2;  // 1 vizinho aberto
+    public static final byte CORRIDOR  = 3;  // 2 vizinhos abertos
+    public static final byte JUNCTION  = 4;  // 3 ou mais vizinhos abertos
+
+    private static final int CACHE_MAGIC = 0x54534D41;   // "TSMA"
+    private static final int CACHE_VERSION = 2;          // 2: 'S' não liga componentes
+    private static final String CACHE_SUFFIX = ".analysis";
+    private static final int BAND_ROWS = 64;             // Linhas por faixa paralela
+
+    public final int rows, cols;
+    public final byte[] hash;              // SHA-256 do conteúdo do mapa
+    public final short[] levelData;        // Bits de parede/comida/saída
+    public final int[] component;          // Raiz do componente de cada célula (-1 = parede)
+    public final byte[] cellKind;          // WALL, DEAD_END, CORRIDOR, JUNCTION...
+    public final int startRow, startCol;   // Posição de 'E' (-1 se ausente)
+    public final int exitRow, exitCol;     // Posição de 'S' (-1 se ausente)
+    public final int foodCount;
+    public final int componentCount;
+    public final int deadEnds, junctions;
+    public final boolean solvable;         // E, todas as comidas e S conectados
+    public final boolean fromCache;        // Se o resultado veio do arquivo de cache
+
+    private MazeAnalysis(int rows, int cols, byte[] hash, short[] levelData, int[] component, byte[] cellKind,
+                         int startRow, int startCol, int exitRow, int exitCol, int foodCount, int componentCount,
+                         int deadEnds, int junctions, boolean solvable, boolean fromCache) {
+        this.rows = rows;
+        this.cols = cols;
+        this.hash = hash;
+        this.levelData = levelData;
+        this.component = component;
+        this.cellKind = cellKind;
+        this.startRow = startRow;
+        this.startCol = startCol;
+        this.exitRow = exitRow;
+        this.exitCol = exitCol;
+        this.foodCount = foodCount;
+        this.componentCount = componentCount;
+        this.deadEnds = deadEnds;
+        this.junctions = junctions;
+        this.solvable = solvable;
+        this.fromCache = fromCache;
+    }
+
+    /**
+     * Analisa o mapa, reaproveitando o cache ao lado de {@code mapPath} quando o hash bate.
+     * Se {@code mapPath} for null (ex.: mapa de fallback) não usa cache.
+     */
+    public static MazeAnalysis analyze(char[][] map, String mapPath) {
+        byte[] hash = contentHash(map);
+        File cacheFile = mapPath == null ? null : new File(mapPath + CACHE_SUFFIX);
+        if (cacheFile != null && cacheFile.isFile()) {
+            MazeAnalysis cached = readCache(cacheFile, hash);
+            if (cached != null) return cached;
+        }
+        MazeAnalysis result = compute(map, hash);
+        if (cacheFile != null) writeCache(cacheFile, result);
+        return result;
+    }
+
+    /** Hash SHA-256 das dimensões e dos caracteres do mapa */
+    public static byte[] contentHash(char[][] map) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update((map.length + "x" + (map.length == 0 ? 0 : map[0].length)).getBytes(StandardCharsets.US_ASCII));
+            byte[] line = new byte[map.length == 0 ? 0 : map[0].length];
+            for (char[] row : map) {
+                for (int c = 0; c < row.length; c++) line[c] = (byte) row[c];
+                md.update(line, 0, row.length);
+            }
+            return md.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /** Hash em hexadecimal (útil para nomes de arquivo e chaves) */
+    public String hashHex() {
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) sb.append(String.format("%02x", b & 0xFF));
+        return sb.toString();
+    }
+
+    // ===================== CÁLCULO =====================
+
+    private static final int[] NEIGHBOR_DR = {-1, 1, 0, 0};
+    private static final int[] NEIGHBOR_DC = {0, 0, 1, -1};
+
+    /** Célula por onde um caminho pode passar (a saída só pode ser o fim dele) */
+    private static boolean passable(char ch) {
+        return ch != 'X' && ch != 'S';
+    }
+
+    private static MazeAnalysis compute(char[][] map, byte[] hash) {
+        int rows = map.length;
+        int cols = rows == 0 ? 0 : map[0].length;
+        short[] data = new short[rows * cols];
+        byte[] kind = new byte[rows * cols];
+        int[] parent = new int[rows * cols];
+
+        // 1) Faixas em paralelo: bits de parede, classificação e união local
+        ForkJoinPool.commonPool().invoke(new BandTask(map, data, kind, parent, 0, rows));
+
+        // 2) Une componentes nas fronteiras entre faixas (sequencial, poucas linhas)
+        for (int r = BAND_ROWS; r < rows; r += BAND_ROWS) {
+            for (int c = 0; c < cols; c++) {
+                if (passable(map[r][c]) && passable(map[r - 1][c])) {
+                    union(parent, (r - 1) * cols + c, r * cols + c);
+                }
+            }
+        }
+
+        // 3) Rótulos finais em paralelo (apenas leitura de parent)
+        int[] component = new int[rows * cols];
+        ForkJoinPool.commonPool().invoke(new LabelTask(parent, data, map, component, cols, 0, rows));
+
+        // 4) Estatísticas e veredito (passada linear simples)
+        int startRow = -1, startCol = -1, exitRow = -1, exitCol = -1;
+        int foodCount = 0, components = 0, deadEnds = 0, junctions = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int i = r * cols + c;
+                char ch = map[r][c];
+                if (ch == 'X') continue;
+                if (component[i] == i && ch != 'S') components++;
+                if (kind[i] == DEAD_END) deadEnds++;
+                else if (kind[i] == JUNCTION) junctions++;
+                if (ch == 'o') foodCount++;
+                else if (ch == 'S') { exitRow = r; exitCol = c; }
+                else if (ch == 'E') { startRow = r; startCol = c; }
+            }
+        }
+        // A saída é só destino: entra no componente de um vizinho (o de E, se for vizinha dele)
+        int startRoot = startRow < 0 ? -1 : component[startRow * cols + startCol];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (map[r][c] != 'S') continue;
+                int i = r * cols + c, root = -1;
+                for (int d = 0; d < 4; d++) {
+                    int nr = r + NEIGHBOR_DR[d], nc = c + NEIGHBOR_DC[d];
+                    if (nr < 0 || nr >= rows || nc < 0 || nc >= cols || !passable(map[nr][nc])) continue;
+                    int neighbor = component[nr * cols + nc];
+                    if (root < 0 || neighbor == startRoot) root = neighbor;
+                }
+                if (root >= 0) component[i] = root;
+                else components++;                 // Saída isolada
+            }
+        }
+        boolean solvable = startRow >= 0 && exitRow >= 0;
+        if (solvable) {
+            int root = component[startRow * cols + startCol];
+            solvable = component[exitRow * cols + exitCol] == root;
+            for (int i = 0; solvable && i < data.length; i++) {
+                if ((data[i] & FOOD_BIT) != 0 && component[i] != root) solvable = false;
+            }
+        }
+        return new MazeAnalysis(rows, cols, hash, data, component, kind, startRow, startCol, exitRow, exitCol,
+                foodCount, components, deadEnds, junctions, solvable, false);
+    }
+
+    /** Processa uma faixa de linhas [from, to): divide até o tamanho de BAND_ROWS */
+    private static class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final char[][] map;
+        private final short[] data;
+        private final byte[] kind;
+        private final int[] parent;
+        private final int from, to;
+
+        BandTask(char[][] map, short[] data, byte[] kind, int[] parent, int from, int to) {
+            this.map = map; this.data = data; this.kind = kind; this.parent = parent;
+            this.from = from; this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int bands = (to - from + BAND_ROWS - 1) / BAND_ROWS;
+            if (bands > 1) {
+                // Divide em múltiplos de BAND_ROWS para que as fronteiras coincidam com a etapa 2
+                int mid = from + (bands / 2) * BAND_ROWS;
+                invokeAll(new BandTask(map, data, kind, parent, from, mid),
+                          new BandTask(map, data, kind, parent, mid, to));
+                return;
+            }
+            int rows = map.length;
+            int cols = map[0].length;
+            for (int r = from; r < to; r++) {
+                for (int c = 0; c < cols; c++) {
+                    int i = r * cols + c;
+                    parent[i] = i;
+                    char ch = map[r][c];
+                    if (ch == 'X') {               // Parede sólida (não é espaço de jogo)
+                        data[i] = 0;
+                        kind[i] = WALL;
+                        continue;
+                    }
+                    short v = 0;
+                    if (c == 0 || map[r][c - 1] == 'X') v |= LEFT_BIT;
+                    if (r == 0 || map[r - 1][c] == 'X') v |= TOP_BIT;
+                    if (c == cols - 1 || map[r][c + 1] == 'X') v |= RIGHT_BIT;
+                    if (r == rows - 1 || map[r + 1][c] == 'X') v |= BOTTOM_BIT;
+                    if (ch == 'o') v |= FOOD_BIT;
+                    else if (ch == 'S') v |= EXIT_BIT;
+                    data[i] = v;
+
+                    int open = 4 - Integer.bitCount(v & (LEFT_BIT | TOP_BIT | RIGHT_BIT | BOTTOM_BIT));
+                    kind[i] = open == 0 ? ISOLATED : open == 1 ? DEAD_END : open == 2 ? CORRIDOR : JUNCTION;
+
+                    // União apenas com vizinhos dentro da própria faixa (esquerda e acima);
+                    // a saída fica de fora e é ligada depois do rótulo
+                    if (ch == 'S') continue;
+                    if ((v & LEFT_BIT) == 0 && passable(map[r][c - 1])) union(parent, i - 1, i);
+                    if ((v & TOP_BIT) == 0 && r > from && passable(map[r - 1][c])) union(parent, i - cols, i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calcula o rótulo final (raiz) de cada célula aberta em paralelo, comprimindo o caminho
+     * até a raiz. As faixas compartilham parent, mas a união já terminou: cada escrita só aponta
+     * um nó para a sua raiz definitiva, então qualquer valor lido por outra faixa continua
+     * sendo um ancestral válido.
+     */
+    private static class LabelTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] parent;
+        private final short[] data;
+        private final char[][] map;
+        private final int[] component;
+        private final int cols, from, to;
+
+        LabelTask(int[] parent, short[] data, char[][] map, int[] component, int cols, int from, int to) {
+            this.parent = parent; this.data = data; this.map = map; this.component = component;
+            this.cols = cols; this.from = from; this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BAND_ROWS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new LabelTask(parent, data, map, component, cols, from, mid),
+                          new LabelTask(parent, data, map, component, cols, mid, to));
+                return;
+            }
+            for (int r = from; r < to; r++) {
+                for (int c = 0; c < cols; c++) {
+                    int i = r * cols + c;
+                    if (map[r][c] == 'X') { component[i] = -1; continue; }
+                    int root = i;
+                    while (parent[root] != root) root = parent[root];
+                    for (int x = i; parent[x] != root && x != root; ) { // Compressão completa
+                        int next = parent[x];
+                        parent[x] = root;
+                        x = next;
+                    }
+                    component[i] = root;
+                }
+            }
+        }
+    }
+
+    /** Union-find: a raiz de menor índice vence (rótulos determinísticos) */
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra == rb) return;
+        if (ra < rb) parent[rb] = ra; else parent[ra] = rb;
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]]; // Compressão por divisão pela metade
+            x = parent[x];
+        }
+        return x;
+    }
+
+    // ===================== CACHE =====================
+
+    private static MazeAnalysis readCache(File file, byte[] hash) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) return null;
+            byte[] stored = new byte[hash.length];
+            in.readFully(stored);
+            if (!MessageDigest.isEqual(stored, hash)) return null; // Mapa mudou
+            int rows = in.readInt(), cols = in.readInt();
+            int startRow = in.readInt(), startCol = in.readInt();
+            int exitRow = in.readInt(), exitCol = in.readInt();
+            int foodCount = in.readInt(), components = in.readInt();
+            int deadEnds = in.readInt(), junctions = in.readInt();
+            boolean solvable = in.readBoolean();
+            int n = rows * cols;
+            short[] data = new short[n];
+            int[] component = new int[n];
+            byte[] kind = new byte[n];
+            for (int i = 0; i < n; i++) data[i] = in.readShort();
+            for (int i = 0; i < n; i++) component[i] = in.readInt();
+            in.readFully(kind);
+            return new MazeAnalysis(rows, cols, hash, data, component, kind, startRow, startCol, exitRow, exitCol,
+                    foodCount, components, deadEnds, junctions, solvable, true);
+        } catch (IOException e) {
+            System.out.println("Cache de análise inválido: " + file + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    private static void writeCache(File file, MazeAnalysis a) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(tmp))))) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(CACHE_VERSION);
+            out.write(a.hash);
+            out.writeInt(a.rows); out.writeInt(a.cols);
+            out.writeInt(a.startRow); out.writeInt(a.startCol);
+            out.writeInt(a.exitRow); out.writeInt(a.exitCol);
+            out.writeInt(a.foodCount); out.writeInt(a.componentCount);
+            out.writeInt(a.deadEnds); out.writeInt(a.junctions);
+            out.writeBoolean(a.solvable);
+            for (short s : a.levelData) out.writeShort(s);
+            for (int v : a.component) out.writeInt(v);
+            out.write(a.cellKind);
+        } catch (IOException e) {
+            System.out.println("Não foi possível salvar cache de análise: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        // Troca atômica para não deixar cache pela metade
+        if (!tmp.renameTo(file)) {
+            file.delete();
+            if (!tmp.renameTo(file)) tmp.delete();
+        }
+    }
+
+    /**
+     * Confere o veredito em labirintos de referência; termina com código 1 se algum divergir:
+     *
+     *   java -cp out MazeAnalysis
+     */
+    public static void main(String[] args) {
+        Object[][] cases = {
+                {"comidas e saída alcançáveis", true, new String[]{
+                        "XXXXXX",
+                        "XEooSX",
+                        "XXXXXX"}},
+                {"comida atrás da saída", false, new String[]{
+                        "XXXXXX",
+                        "XEoSoX",
+                        "XXXXXX"}},
+                {"comida atrás da saída, com desvio", true, new String[]{
+                        "XXXXXX",
+                        "XEoSoX",
+                        "X____X",
+                        "XXXXXX"}},
+                {"comida isolada", false, new String[]{
+                        "XXXXXXX",
+                        "XEoSXoX",
+                        "XXXXXXX"}},
+        };
+        int failures = 0;
+        for (Object[] t : cases) {
+            String[] lines = (String[]) t[2];
+            char[][] map = new char[lines.length][];
+            for (int i = 0; i < lines.length; i++) map[i] = lines[i].toCharArray();
+            boolean solvable = analyze(map, null).solvable;
+            boolean ok = solvable == (Boolean) t[1];
+            if (!ok) failures++;
+            System.out.printf("[ANALISE] %-36s solucionável=%-5b %s%n", t[0], solvable, ok ? "OK" : "FALHOU");
+        }
+        if (failures > 0) System.exit(1);
+    }
+}
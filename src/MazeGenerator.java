@@ -0,0 +1,73 @@
+import java.util.Random;
+
+/**
+ * Gera labirintos determinísticos (mesma semente = mesmo labirinto) para testes e benchmarks.
+ * Cria um labirinto perfeito por DFS iterativa e depois abre algumas paredes extras
+ * para formar ciclos. 'E' fica no canto superior esquerdo e 'S' no inferior direito.
+ */
+public class MazeGenerator {
+
+    /**
+     * @param rows      linhas (ímpar; arredondado para baixo se par)
+     * @param cols      colunas (ímpar; arredondado para baixo se par)
+     * @param foods     quantidade de comidas espalhadas em corredores
+     * @param loopRatio fração de paredes internas removidas para criar ciclos (0 = labirinto perfeito)
+     * @param seed      semente do gerador
+     */
+    public static char[][] generate(int rows, int cols, int foods, double loopRatio, long seed) {
+        if (rows % 2 == 0) rows--;
+        if (cols % 2 == 0) cols--;
+        if (rows < 5 || cols < 5) throw new IllegalArgumentException("labirinto muito pequeno");
+        Random rnd = new Random(seed);
+        char[][] m = new char[rows][cols];
+        for (char[] line : m) java.util.Arrays.fill(line, 'X');
+
+        // DFS iterativa sobre as células ímpares
+        int cellRows = rows / 2, cellCols = cols / 2;
+        int[] stack = new int[cellRows * cellCols];
+        boolean[] seen = new boolean[cellRows * cellCols];
+        int top = 0;
+        stack[top++] = 0;
+        seen[0] = true;
+        m[1][1] = '_';
+        int[] dirs = new int[4];
+        while (top > 0) {
+            int cur = stack[top - 1];
+            int cr = cur / cellCols, cc = cur % cellCols;
+            int n = 0;
+            if (cr > 0 && !seen[cur - cellCols]) dirs[n++] = 0;
+            if (cr < cellRows - 1 && !seen[cur + cellCols]) dirs[n++] = 1;
+            if (cc > 0 && !seen[cur - 1]) dirs[n++] = 2;
+            if (cc < cellCols - 1 && !seen[cur + 1]) dirs[n++] = 3;
+            if (n == 0) { top--; continue; }
+            int d = dirs[rnd.nextInt(n)];
+            int nr = cr + (d == 0 ? -1 : d == 1 ? 1 : 0);
+            int nc = cc + (d == 2 ? -1 : d == 3 ? 1 : 0);
+            int next = nr * cellCols + nc;
+            seen[next] = true;
+            m[2 * nr + 1][2 * nc + 1] = '_';
+            m[cr + nr + 1][cc + nc + 1] = '_';    // Parede entre as duas células
+            stack[top++] = next;
+        }
+
+        // Ciclos: remove paredes internas entre dois corredores
+        int extra = (int) (loopRatio * cellRows * cellCols);
+        for (int i = 0; i < extra; i++) {
+            int r = 1 + rnd.nextInt(rows - 2);
+            int c = 1 + rnd.nextInt(cols - 2);
+            if (m[r][c] != 'X') continue;
+            boolean horizontal = m[r][c - 1] != 'X' && m[r][c + 1] != 'X' && m[r - 1][c] == 'X' && m[r + 1][c] == 'X';
+            boolean vertical = m[r - 1][c] != 'X' && m[r + 1][c] != 'X' && m[r][c - 1] == 'X' && m[r][c + 1] == 'X';
+            if (horizontal || vertical) m[r][c] = '_';
+        }
+
+        m[1][1] = 'E';
+        m[rows - 2][cols - 2] = 'S';
+        for (int placed = 0, tries = 0; placed < foods && tries < foods * 100; tries++) {
+            int r = 1 + rnd.nextInt(rows - 2);
+            int c = 1 + rnd.nextInt(cols - 2);
+            if (m[r][c] == '_') { m[r][c] = 'o'; placed++; }
+        }
+        return m;
+    }
+}
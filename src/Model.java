@@ -1,595 +1,514 @@
-import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
- * Classe principal do jogo (painel) que gerencia:
- * - Carregamento do mapa a partir de um arquivo (via classe Map)
- * - Representação do labirinto usando bits por célula
- * - Movimentação do Pacman
- * - Coleta de comidas e liberação da saída
- * - Pontuação, vidas e estados de vitória/derrota
- * - Renderização gráfica
+ * Tela do jogo (Canvas com renderização ativa) que gerencia:
+ * - Níveis de um {@link LevelPack}: o próximo é preparado em segundo plano e, ao vencer,
+ *   entra no lugar do atual sem pausa
+ * - Ciclo de atualização da partida (núcleo headless em Game)
+ * - Controle por teclado e pelo agente
+ * - Renderização gráfica com câmera: só as células visíveis são desenhadas,
+ *   com níveis de zoom e minimapa do labirinto inteiro
+ *
+ * Uma thread própria roda o laço: a simulação avança em passos fixos de TICK_MILLIS
+ * (independente da taxa de quadros) e cada quadro é desenhado num BufferStrategy,
+ * interpolando a posição do Pacman entre o tick anterior e o atual. As teclas chegam pela
+ * EDT numa fila e são aplicadas na thread do laço antes de cada tick, então o estado do
+ * jogo só é tocado por ela e a partida não depende do ritmo de pintura.
  */
-public class Model extends JPanel implements ActionListener {
-
-    // Bits para representar propriedades de um bloco (célula) do labirinto:
-    // 1 = parede à esquerda
-    // 2 = parede acima
-    // 4 = parede à direita
-    // 8 = parede abaixo
-    // 16 = contém comida
-    // 32 = é a saída
-    private static final int BLOCK_SIZE = 24;            // Tamanho (pixels) de cada bloco
+public class Model extends Canvas implements Runnable {
+
+    private static final int BLOCK_SIZE = Game.BLOCK_SIZE; // Tamanho (pixels) de cada bloco
     private static final boolean DEBUG = true;           // Ativa logs de depuração
-    private static final boolean LOG_STEPS = false;      // Ativa log detalhado de passos (movimento)
-    private static final int PACMAN_SPEED = 3;           // Velocidade (pixels por frame)
-    private static final int FOOD_VALUE = 10;            // Pontos ganhos por comida
-    private static final int STEP_PENALTY = -1;          // Penalidade ao entrar em um novo bloco
-    private static final int WIN_BONUS = 100;            // Bônus ao vencer
+    private static final int WIN_BONUS = Game.WIN_BONUS; // Bônus ao vencer
+    private static final String KNOWLEDGE_DIR = ".teseu/knowledge"; // Memória do agente entre partidas
+    private static final int MAX_VIEW_COLS = 40;         // Tamanho máximo da área visível (em blocos)
+    private static final int MAX_VIEW_ROWS = 25;
+    private static final int MINIMAP_SIZE = 160;         // Lado máximo do minimapa (pixels)
+    private static final long TICK_MILLIS = 80;           // Passo fixo da simulação (~12.5 ticks/s)
+    private static final int WIN_PAUSE_TICKS = 25;        // "Venceu!" na tela (~2 s) antes do próximo nível
+    private static final int MAX_TICKS_PER_FRAME = 5;     // Atraso maior que isso é descartado
+    private static final String FPS_PROPERTY = "teseu.render.fps"; // Quadros/s (0 = sem limite)
+    private static final int DEFAULT_FPS = 60;
 
     // Máscaras de bits para facilitar leitura
-    private static final short LEFT_BIT   = 1;
-    private static final short TOP_BIT    = 2;
-    private static final short RIGHT_BIT  = 4;
-    private static final short BOTTOM_BIT = 8;
-    private static final short FOOD_BIT   = 16;
-    private static final short EXIT_BIT   = 32;
+    private static final short LEFT_BIT   = MazeAnalysis.LEFT_BIT;
+    private static final short TOP_BIT    = MazeAnalysis.TOP_BIT;
+    private static final short RIGHT_BIT  = MazeAnalysis.RIGHT_BIT;
+    private static final short BOTTOM_BIT = MazeAnalysis.BOTTOM_BIT;
+    private static final short EXIT_BIT   = MazeAnalysis.EXIT_BIT;
 
     private final Font smallFont = new Font("Arial", Font.BOLD, 14); // Fonte para textos na HUD
 
-    // Imagens cacheadas estaticamente para evitar recarregamento
-    private static Image DOWN_IMG, UP_IMG, LEFT_IMG, RIGHT_IMG, HEART_IMG, FOOD_IMG;
-
-    // Matriz de caracteres carregada do arquivo do labirinto
-    private final char[][] map = initMap();
-    private final int ROWS = map.length;             // Número de linhas do mapa
-    private final int COLS = map[0].length;          // Número de colunas do mapa
-    private final int SCREEN_WIDTH = COLS * BLOCK_SIZE;   // Largura da área de jogo
-    private final int SCREEN_HEIGHT = ROWS * BLOCK_SIZE;  // Altura da área de jogo
-
-    // levelData: dados iniciais construídos a partir do mapa (modelo base)
-    private final short[] levelData = buildLevelData();
-    // screenData: estado mutável durante o jogo (comidas consumidas etc.)
-    private final short[] screenData = new short[ROWS * COLS];
-
-    private boolean inGame = false;    // Indica se a partida está em andamento
-    private boolean gameWon = false;   // Indica se o jogador venceu
-
-    private int score;                 // Pontuação atual
-    private int lives;                 // Vidas restantes
-
-    // Coordenadas do Pacman em pixels
-    private int pacman_x, pacman_y;
-    // Direção aplicada atualmente
-    private int pacmand_x, pacmand_y;
-    // Direção solicitada (tecla pressionada)
-    private int req_dx, req_dy;
-
-    private int exitRow = -1;
-    private boolean exitUnlocked = false;     // Se a saída já foi liberada (todas comidas coletadas)
-    private int totalFood = 0;                // Quantidade total de comidas no início
-    private int foodsLeft = 0;                // Quantas comidas ainda restam
-    private int startRow = -1, startCol = -1; // Posição inicial (E)
-
-    // Imagens instanciadas (referências locais)
-    private Image up, down, left, right, heart, food;
+    // Cores e traço reutilizados a cada frame
+    private static final Color WALL_COLOR = new Color(0,72,251);
+    private static final Color EXIT_LOCKED_COLOR = new Color(110,0,0);
+    private static final Color EXIT_OPEN_COLOR = new Color(255,0,0);
+    private static final Color EXIT_TEXT_COLOR = new Color(255,80,80);
+    private static final Color SCORE_COLOR = new Color(5,181,79);
+    private static final Color MINIMAP_OPEN_COLOR = new Color(0,0,0);
+    private static final BasicStroke[] WALL_STROKES = new BasicStroke[Camera.TILE_SIZES.length];
+    static {
+        // Espessura da parede proporcional ao zoom (5 px no tamanho original)
+        for (int i = 0; i < WALL_STROKES.length; i++) {
+            WALL_STROKES[i] = new BasicStroke(Math.max(1, 5 * Camera.TILE_SIZES[i] / BLOCK_SIZE));
+        }
+    }
 
-    private boolean hungerJustDied = false;   // Usado para exibir mensagem ao morrer por fome (saída antecipada)
-    private int frameCounter = 0;             // Contador de frames para debug/memória
+    // Pacote de níveis (o próximo é preparado numa thread de pré-carga)
+    private final LevelPack pack = LevelPack.fromSystemProperty(KNOWLEDGE_DIR, DEBUG);
+    private LevelPack.Level level;
 
-    private final Agent agent;
-    private boolean aiEnabled = true;
+    // Nível atual: labirinto (mapa, levelData e análise), partida e agente; trocados a cada nível
+    private Maze maze;
+    private char[][] map;
+    private int ROWS;                         // Número de linhas do mapa
+    private int COLS;                         // Número de colunas do mapa
+    private short[] levelData;                // Bits de parede/comida/saída
+    private Game game;                        // Estado da partida (posição, comidas, pontuação, vidas)
+    private Agent agent;
+
+    // Área visível: definida pelo primeiro nível (a janela não muda de tamanho)
+    private final int SCREEN_WIDTH;
+    private final int SCREEN_HEIGHT;
+
+    // Imagens compartilhadas (carregadas uma vez em Assets)
+    private Image up, down, left, right, heart, food;
+    private BufferedImage foodSprite;         // Comida já redimensionada para o zoom atual
+
+    // Câmera que segue o Pacman e minimapa (gerado uma vez por nível, reduzido)
+    private Camera camera;
+    private BufferedImage minimap;
+    private int minimapScale;                 // Células por pixel do minimapa
+    private boolean minimapVisible = true;
+
+    // Laço ativo: fila de teclas (EDT -> laço) e posição do Pacman no tick anterior
+    private final ConcurrentLinkedQueue<Integer> keys = new ConcurrentLinkedQueue<>();
+    private final long frameNanos = frameNanos();
+    private Thread loop;
+    private volatile boolean running;
+    private int prevX, prevY;                 // Pixels do Pacman antes do último tick
+    private long tick;                        // Ticks simulados
+    private long hungerMessageTick = -1;      // Tick em que a morte por fome é anunciada
+    private long wonTick = -1;                // Tick da vitória no nível atual (-1 = ainda não venceu)
+
+    // Transmissão para espectadores (só com -Dteseu.spectator.port=<porta>)
+    private final SpectatorServer spectators = SpectatorServer.fromSystemProperty();
+    private SpectatorServer.Stream stream;
 
-    /** Construtor: carrega imagens, inicializa estado e inicia loop do jogo */
+    /**
+     * Construtor: carrega imagens enquanto o primeiro nível é preparado na thread de
+     * pré-carga e inicializa o estado (o laço começa em {@link #start()})
+     */
     public Model() {
         loadImages();                         // Carrega imagens (uma vez)
+        enterLevel(pack.current());           // Espera o primeiro nível; o segundo já começa a ser preparado
+        agent.setPortfolio(Boolean.getBoolean(PortfolioPlanner.PROPERTY));
+        SCREEN_WIDTH = Math.min(COLS, MAX_VIEW_COLS) * BLOCK_SIZE;
+        SCREEN_HEIGHT = Math.min(ROWS, MAX_VIEW_ROWS) * BLOCK_SIZE;
+        camera = new Camera(ROWS, COLS, SCREEN_WIDTH, SCREEN_HEIGHT);
         setPreferredSize(new Dimension(SCREEN_WIDTH, SCREEN_HEIGHT + 40));
         setFocusable(true);                   // Necessário para receber eventos de teclado
         addKeyListener(new TAdapter());       // Adiciona controle por teclado
-        recalcFoodCount(levelData);           // Conta comidas antes de iniciar
-        initGame();                           // Prepara variáveis do jogo
-        this.agent = new Agent(this);
-        if (DEBUG) System.out.println("[Model criado. Dim="+ROWS+"x"+COLS);
-        // Timer Swing para repintar e atualizar o jogo
-        Timer timer = new Timer(80, this);          // Intervalo ~12.5 FPS
-        timer.start();                        // Inicia ciclo
+        if (DEBUG) System.out.println("[Model criado. Dim="+ROWS+"x"+COLS+", níveis="+pack.size());
+        setIgnoreRepaint(true);               // Quem pinta é o laço, não o AWT
     }
 
-    /** Carrega e cacheia as imagens usadas no jogo */
-    private void loadImages() {
-        if (DOWN_IMG == null) { // Carrega apenas uma vez
-            DOWN_IMG  = new ImageIcon("src/images/down.gif").getImage();
-            UP_IMG    = new ImageIcon("src/images/up.gif").getImage();
-            LEFT_IMG  = new ImageIcon("src/images/left.gif").getImage();
-            RIGHT_IMG = new ImageIcon("src/images/right.gif").getImage();
-            HEART_IMG = new ImageIcon("src/images/heart.png").getImage();
-            FOOD_IMG  = new ImageIcon("src/images/food.png").getImage();
+    /** Troca as referências para o nível já preparado (só aponta para objetos prontos) */
+    private void enterLevel(LevelPack.Level next) {
+        level = next;
+        maze = next.maze;
+        map = maze.map;
+        ROWS = maze.rows;
+        COLS = maze.cols;
+        levelData = maze.levelData;
+        game = next.game;
+        agent = next.agent;
+        minimap = null;
+        prevX = game.getPacmanX();
+        prevY = game.getPacmanY();
+        wonTick = -1;
+        if (camera != null) { // Câmera do novo labirinto, com o zoom escolhido nas teclas +/-
+            int zoom = camera.zoomLevel();
+            camera = new Camera(ROWS, COLS, SCREEN_WIDTH, SCREEN_HEIGHT);
+            camera.setZoomLevel(zoom);
         }
-        // Atribui às referências locais
-        down = DOWN_IMG; up = UP_IMG; left = LEFT_IMG; right = RIGHT_IMG; heart = HEART_IMG; food = FOOD_IMG;
+        // Mesmo id: o Stream do nível anterior é encerrado e os espectadores reconectam
+        // para receber o cabeçalho do novo labirinto (ver SpectatorServer)
+        if (spectators != null) stream = spectators.publish(0, game);
+        MazeAnalysis analysis = maze.analysis;
+        if (DEBUG) System.out.println("[DEBUG] Nível " + (next.index + 1) + " (" + next.name + ") análise"
+                + (analysis.fromCache ? " (cache)" : "") + ": componentes=" + analysis.componentCount
+                + ", becos=" + analysis.deadEnds + ", junções=" + analysis.junctions + ", solucionável=" + analysis.solvable);
     }
 
-    /**
-     * Constrói o vetor de shorts (levelData) a partir dos caracteres do mapa.
-     * Para cada célula aberta calcula quais paredes existem (derivadas de vizinhos 'X').
-     * Marca também onde há comida, saída ou posição inicial.
-     */
-    private short[] buildLevelData() {
-        short[] data = new short[ROWS * COLS];
-        for (int r = 0; r < ROWS; r++) {
-            for (int c = 0; c < COLS; c++) {
-                char ch = map[r][c];
-                if (ch == 'X') {               // Parede sólida (não é espaço de jogo)
-                    data[r * COLS + c] = 0;
-                    continue;
-                }
-                short v = 0;
-                // Marca paredes conforme presença de 'X' nos vizinhos ou bordas do mapa
-                if (c == 0 || map[r][c - 1] == 'X') v |= LEFT_BIT;
-                if (r == 0 || map[r - 1][c] == 'X') v |= TOP_BIT;
-                if (c == COLS - 1 || map[r][c + 1] == 'X') v |= RIGHT_BIT;
-                if (r == ROWS - 1 || map[r + 1][c] == 'X') v |= BOTTOM_BIT;
-
-                // Marca conteúdo especial
-                if (ch == 'o') {
-                    v |= FOOD_BIT;                 // Comida
-                } else if (ch == 'S') {
-                    v |= EXIT_BIT;                 // Saída
-                    exitRow = r; // Posição da saída (S)
-                } else if (ch == 'E') {            // Posição inicial (não é saída)
-                    startRow = r; startCol = c;
-                }
-                data[r * COLS + c] = v;            // Guarda resultado
-            }
-        }
-        return data;
+    /** Vai para o próximo nível do pacote e já começa a jogá-lo, mantendo IA e planejadores */
+    private void nextLevel() {
+        if (pack.size() < 2) return;
+        boolean ai = game.isAiEnabled(), mcts = agent.isMonteCarlo(), portfolio = agent.isPortfolio();
+        long t0 = System.nanoTime();
+        enterLevel(pack.advance());                 // O pacote encerra o nível anterior
+        game.setAiEnabled(ai);
+        agent.setMonteCarlo(mcts);
+        agent.setPortfolio(portfolio);
+        game.start();
+        if (DEBUG) System.out.printf("[NIVEL] Troca para o nível %d em %.2f ms%n", level.index + 1, (System.nanoTime() - t0) / 1e6);
     }
 
-    /** Reconta comidas em um dado array (levelData ou screenData) */
-    private void recalcFoodCount(short[] data) {
-        int count = 0;
-        for (short cell : data) {
-            if ((cell & FOOD_BIT) != 0) count++;
+    private static long frameNanos() {
+        int fps = DEFAULT_FPS;
+        try {
+            fps = Integer.parseInt(System.getProperty(FPS_PROPERTY, String.valueOf(DEFAULT_FPS)).trim());
+        } catch (NumberFormatException e) {
+            System.out.println("[AVISO] " + FPS_PROPERTY + " inválido; usando " + DEFAULT_FPS);
         }
-        totalFood = count;
-        foodsLeft = totalFood;
-        if (DEBUG) System.out.println("[DEBUG] Recontagem de comidas: totalFood=" + totalFood);
+        return fps > 0 ? 1_000_000_000L / fps : 0;
     }
 
-    /** Inicializa/reinicia o estado da partida */
-    private void initGame() {
-        lives = 3;
-        score = 0;
-        gameWon = false;
-        hungerJustDied = false;
-        System.arraycopy(levelData, 0, screenData, 0, screenData.length); // Copia estado base
-        recalcFoodCount(screenData);                                      // Recalcula comidas
-        exitUnlocked = false;                                             // Saída começa bloqueada
-        if (foodsLeft == 0) {                                             // Caso especial: nenhum alimento
-            exitUnlocked = true;
-            if (DEBUG) System.out.println("[DEBUG] Nenhuma comida após init. Saída liberada.");
-        } else if (DEBUG) {
-            System.out.println("[DEBUG] Jogo iniciado. Comidas: " + foodsLeft + ", saída bloqueada.");
-        }
-        placePacman();                // Define posição inicial
-        pacmand_x = pacmand_y = 0;    // Zera movimentação
-        req_dx = req_dy = 0;          // Zera direção solicitada
-        if (agent != null) {
-            agent.reset();
-        }
+    /** Cria o BufferStrategy e inicia a thread do laço (chamar com a janela já visível) */
+    public void start() {
+        if (loop != null) return;
+        createBufferStrategy(2);
+        requestFocus();
+        running = true;
+        loop = new Thread(this, "game-loop");
+        loop.start();
     }
 
-    /** Posiciona o Pacman: primeiro tenta 'E', senão escolhe qualquer célula válida */
-    private void placePacman() {
-        if (startRow >= 0 && startCol >= 0) { // Se posição 'E' foi encontrada
-            pacman_x = startCol * BLOCK_SIZE;
-            pacman_y = startRow * BLOCK_SIZE;
-            if (DEBUG) System.out.println("[DEBUG] Pacman iniciado em E: ("+startRow+","+startCol+")");
-            return;
-        }
-        // Fallback: primeira célula não parede e não saída
-        for (int r = 0; r < ROWS; r++) {
-            for (int c = 0; c < COLS; c++) {
-                if (map[r][c] != 'X' && (screenData[r * COLS + c] & EXIT_BIT) == 0) {
-                    pacman_x = c * BLOCK_SIZE;
-                    pacman_y = r * BLOCK_SIZE;
-                    if (DEBUG) System.out.println("[DEBUG] Pacman iniciado fallback em ("+r+","+c+")");
-                    return;
-                }
+    /**
+     * Para o laço, espera a thread terminar e encerra o pacote de níveis (grava a memória do
+     * agente) e a transmissão para espectadores (fecha a porta)
+     */
+    public void stop() {
+        running = false;
+        if (loop == Thread.currentThread()) return;
+        if (loop != null) {
+            try {
+                loop.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+            if (loop.isAlive()) return;          // Laço ainda no tick: não solta o que ele usa
         }
-        // Se nada encontrado (mapa inválido) posiciona no zero
-        pacman_x = pacman_y = 0;
-    }
-
-    /** Loop de jogo: chamada a cada repaint quando inGame */
-    private void playGame(Graphics2D g2d) {
-        if (aiEnabled && pacman_x % BLOCK_SIZE == 0 && pacman_y % BLOCK_SIZE == 0) {
-            thinkAI();
-        }
-        movePacman();    // Processa lógica de movimento/colisão
-        drawPacman(g2d);               // Desenha o Pacman
-        drawExitStatus(g2d);           // Informações sobre a saída
-    }
-
-    private void thinkAI() {
-        Point nextMove = agent.decideNextMove();
-        req_dx = nextMove.x;
-        req_dy = nextMove.y;
-    }
-
-    /** Carrega o mapa do arquivo usando a classe Map; fallback se falhar */
-    private char[][] initMap() {
-        char[][] m = Map.loadMap("src/resources/maze.txt");
-        if (m == null || m.length == 0) { // Falha ou vazio
-            if (DEBUG) System.out.println("[DEBUG] Mapa não carregado. Usando fallback.");
-            String[] fallback = {
-                    "XXXX",
-                    "XEXX",
-                    "XoSX",
-                    "XXXX"
-            };
-            char[][] fb = new char[fallback.length][];
-            for (int i=0;i<fallback.length;i++) fb[i] = fallback[i].toCharArray();
-            return fb;
+        pack.close();
+        if (spectators != null) {
+            if (stream != null) spectators.unpublish(stream);
+            spectators.close();
+            stream = null;
         }
-        return m;
     }
 
     /**
-     * Lógica de movimento do Pacman:
-     * - Verifica se está alinhado em bloco para processar mudança de direção
-     * - Coleta comida quando presente
-     * - Controla morte por tentar sair antes de liberar
-     * - Aplica penalidade de passo ao entrar em novo bloco
-     * - Verifica vitória ao entrar na saída liberada
+     * Laço de passo fixo: acumula o tempo real, roda quantos ticks couberem (no máximo
+     * MAX_TICKS_PER_FRAME; o resto é descartado para não entrar em espiral) e desenha com a
+     * fração do próximo tick já decorrida. Dorme até o próximo quadro conforme FPS_PROPERTY.
      */
-    private void movePacman() {
-        int prevCellCol = pacman_x / BLOCK_SIZE;  // Coluna anterior (antes de mover)
-        int prevCellRow = pacman_y / BLOCK_SIZE;  // Linha anterior
-
-        // Só processa paredes e coleta quando está centralizado num bloco
-        if (pacman_x % BLOCK_SIZE == 0 && pacman_y % BLOCK_SIZE == 0) {
-            int col = pacman_x / BLOCK_SIZE;
-            int row = pacman_y / BLOCK_SIZE;
-            int pos = row * COLS + col;
-            short cell = screenData[pos];
-
-            // Se está em uma saída bloqueada -> morte por fome
-            if ((cell & EXIT_BIT) != 0 && !exitUnlocked) {
-                hungerDeath();
-                return; // Não processa mais este frame
-            }
-
-            // Coleta comida se houver
-            if ((cell & FOOD_BIT) != 0) {
-                screenData[pos] = (short)(cell & ~FOOD_BIT); // Remove bit de comida
-                if (foodsLeft > 0) foodsLeft--;               // Decrementa contador
-                if (foodsLeft <= 0) {                        // Todas comidas coletadas
-                    foodsLeft = 0;
-                    if (!exitUnlocked) {
-                        exitUnlocked = true;                 // Libera saída
-                        if (DEBUG) System.out.println("[DEBUG] Todas as comidas coletadas. Saída liberada!");
-                    }
-                }
-                score += FOOD_VALUE;                          // Atualiza pontuação
-                if (DEBUG) System.out.println("[DEBUG] Comida coletada. Restam: " + foodsLeft);
-            }
-
-            // Tenta aplicar direção requisitada (teclas) se não houver parede
-            if (req_dx != 0 || req_dy != 0) {
-                int nextRow = row + req_dy;
-                int nextCol = col + req_dx;
-                boolean canApply = true;
-                if (nextRow >= 0 && nextRow < ROWS && nextCol >=0 && nextCol < COLS) {
-                    int nPos = nextRow * COLS + nextCol;
-                    short nextCell = screenData[nPos];
-                    // Se a próxima célula é saída bloqueada -> morre
-                    if ((nextCell & EXIT_BIT) != 0 && !exitUnlocked) {
-                        hungerDeath();
-                        return;
-                    }
-                    // Verifica paredes em relação à direção solicitada
-                    if ((req_dx == -1 && (cell & LEFT_BIT) != 0) ||
-                        (req_dx == 1  && (cell & RIGHT_BIT) != 0) ||
-                        (req_dy == -1 && (cell & TOP_BIT) != 0) ||
-                        (req_dy == 1  && (cell & BOTTOM_BIT) != 0)) {
-                        canApply = false; // Parede bloqueia troca de direção
-                    }
-                }
-                if (canApply) { // Aplica direção válida
-                    pacmand_x = req_dx; pacmand_y = req_dy;
+    @Override
+    public void run() {
+        BufferStrategy strategy = getBufferStrategy();
+        long tickNanos = TICK_MILLIS * 1_000_000L;
+        long last = System.nanoTime();
+        long accumulated = 0;
+        while (running) {
+            long now = System.nanoTime();
+            accumulated += now - last;
+            last = now;
+            int ticks = 0;
+            while (accumulated >= tickNanos) {
+                if (ticks++ == MAX_TICKS_PER_FRAME) {
+                    accumulated %= tickNanos;
+                    break;
                 }
+                step();
+                accumulated -= tickNanos;
             }
-
-            // Verifica se direção atual bate numa parede e cancela se necessário
-            int targetRow = row + pacmand_y;
-            int targetCol = col + pacmand_x;
-            if ((pacmand_x == -1 && (cell & LEFT_BIT) != 0) ||
-                (pacmand_x == 1  && (cell & RIGHT_BIT) != 0) ||
-                (pacmand_y == -1 && (cell & TOP_BIT) != 0) ||
-                (pacmand_y == 1  && (cell & BOTTOM_BIT) != 0)) {
-                // Apenas loga se estava tentando mover
-                if (DEBUG) {
-                    boolean L = (cell & LEFT_BIT) != 0, R = (cell & RIGHT_BIT) != 0, T = (cell & TOP_BIT) != 0, B = (cell & BOTTOM_BIT) != 0;
-                    System.out.println("[DEBUG] Movimento cancelado (parede). cell=("+row+","+col+") dir=("+pacmand_x+","+pacmand_y+") L="+L+" R="+R+" T="+T+" B="+B);
-                }
-                pacmand_x = pacmand_y = 0; // Para o movimento
-            } else if (targetRow >=0 && targetRow < ROWS && targetCol >=0 && targetCol < COLS) {
-                int tPos = targetRow * COLS + targetCol;
-                short tCell = screenData[tPos];
-                if ((tCell & EXIT_BIT) != 0 && !exitUnlocked) { // Se destino é saída bloqueada
-                    hungerDeath();
-                    return;
+            draw(strategy, (double) accumulated / tickNanos);
+            long wait = frameNanos - (System.nanoTime() - now);
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+                } catch (InterruptedException e) {
+                    running = false;
                 }
+            } else {
+                Thread.yield();
             }
-
-            // Vitória: entrou na saída depois de desbloqueada
-            if ((cell & EXIT_BIT) != 0 && exitUnlocked) {
-                onGameWon();
-            }
-        }
-        // Move em pixels de acordo com direção atual
-        pacman_x += PACMAN_SPEED * pacmand_x;
-        pacman_y += PACMAN_SPEED * pacmand_y;
-
-        // Penalidade de passo: só quando realmente entrou em outra célula
-        int newCellCol = pacman_x / BLOCK_SIZE;
-        int newCellRow = pacman_y / BLOCK_SIZE;
-        if ((pacmand_x != 0 || pacmand_y != 0) && (newCellCol != prevCellCol || newCellRow != prevCellRow)) {
-            score += STEP_PENALTY;
-            if (DEBUG && LOG_STEPS) System.out.println("[DEBUG] Passo: score=" + score);
-        }
-        // Debug periódico de memória
-        if (DEBUG) {
-            frameCounter++;
-            if (frameCounter % 300 == 0) logMemory();
         }
     }
 
-    /** Processa morte por tentar sair sem coletar todas as comidas */
-    private void hungerDeath() {
-        lives--;                         // Perde uma vida
-        hungerJustDied = true;           // Marca para exibir mensagem específica
-        if (DEBUG) System.out.println("[DEBUG] Morte por fome! Vidas restantes: " + lives);
-        if (lives <= 0) {                // Game over
-            inGame = false;
-            gameWon = false;
-        } else {                         // Reinicia posição
-            placePacman();
-        }
-        pacmand_x = pacmand_y = 0;
-        req_dx = req_dy = 0;
+    /** Um tick da simulação: aplica as teclas da fila e avança a partida */
+    void step() {
+        for (Integer k; (k = keys.poll()) != null; ) handleKey(k);
+        prevX = game.getPacmanX();
+        prevY = game.getPacmanY();
+        if (game.isInGame()) game.tick();                     // IA + lógica de movimento/colisão
+        if (game.consumeHungerJustDied()) hungerMessageTick = tick;
+        if (stream != null) stream.capture();                 // Delta para os espectadores
+        tick++;
+        if (!game.isGameWon()) wonTick = -1;                  // Reiniciada com espaço
+        else if (wonTick < 0) wonTick = tick;
+        else if (tick - wonTick >= WIN_PAUSE_TICKS) nextLevel(); // Próximo nível já está pronto
     }
 
-    /** Marca estado de vitória e aplica bônus */
-    private void onGameWon() {
-        if (!gameWon) {
-            if (DEBUG) System.out.println("[DEBUG] Vitória: foodsLeft="+foodsLeft+", exitUnlocked="+exitUnlocked);
-            score += WIN_BONUS;          // Aplica bônus final
-            gameWon = true;
-            inGame = false;              // Pausa o jogo
-        }
+    /** Mostra o quadro no BufferStrategy (repete se o conteúdo do buffer foi perdido) */
+    private void draw(BufferStrategy strategy, double alpha) {
+        do {
+            do {
+                Graphics2D g2d = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    render(g2d, alpha);
+                } finally {
+                    g2d.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync(); // Sincroniza (melhora suavidade em alguns SOs)
     }
 
-    /** Desenha o Pacman conforme direção solicitada mais recente */
-    private void drawPacman(Graphics2D g2d) {
+    /** Referências para as imagens compartilhadas (carregadas uma vez em Assets) */
+    private void loadImages() {
+        down = Assets.DOWN; up = Assets.UP; left = Assets.LEFT; right = Assets.RIGHT; heart = Assets.HEART; food = Assets.FOOD;
+    }
+
+    /** Desenha o Pacman (posição interpolada, em pixels lógicos) conforme direção solicitada mais recente */
+    private void drawPacman(Graphics2D g2d, int px, int py) {
         Image img = down;
-        if (req_dx == -1) img = left;
-        else if (req_dx == 1) img = right;
-        else if (req_dy == -1) img = up;
-        g2d.drawImage(img, pacman_x + 1, pacman_y + 1, this);
+        if (game.getReqDx() == -1) img = left;
+        else if (game.getReqDx() == 1) img = right;
+        else if (game.getReqDy() == -1) img = up;
+        int t = camera.tile();
+        int x = px * t / BLOCK_SIZE;
+        int y = py * t / BLOCK_SIZE;
+        if (t == BLOCK_SIZE) g2d.drawImage(img, x + 1, y + 1, this);
+        else g2d.drawImage(img, x, y, t, t, this);
     }
 
-    /** Desenha o labirinto: paredes, comidas e saída */
+    /** Desenha o labirinto (apenas as células visíveis pela câmera): paredes, comidas e saída */
     private void drawMaze(Graphics2D g2d) {
-        int idx = 0; // Índice linear da célula
-        g2d.setStroke(new BasicStroke(5));
-        for (int r = 0; r < ROWS; r++) {
-            int y = r * BLOCK_SIZE;
-            for (int c = 0; c < COLS; c++) {
-                int x = c * BLOCK_SIZE;
+        int t = camera.tile();
+        int pad = Math.max(1, t / 6);   // Margem da comida/saída dentro do bloco
+        g2d.setStroke(WALL_STROKES[camera.zoomLevel()]);
+        BufferedImage sprite = foodSprite(t - 2 * pad);
+        for (int r = camera.firstRow(), lastRow = camera.lastRow(); r <= lastRow; r++) {
+            int y = r * t;
+            for (int c = camera.firstCol(), lastCol = camera.lastCol(); c <= lastCol; c++) {
+                int x = c * t;
+                int idx = r * COLS + c; // Índice linear da célula
                 char raw = map[r][c];
-                short cell = screenData[idx];
+                short cell = levelData[idx];
                 if (raw != 'X') { // Não desenha interior de paredes sólidas
-                    g2d.setColor(new Color(0,72,251));
+                    g2d.setColor(WALL_COLOR);
                     // Desenha bordas conforme bits
-                    if ((cell & LEFT_BIT) != 0)   g2d.drawLine(x, y, x, y + BLOCK_SIZE - 1);
-                    if ((cell & TOP_BIT) != 0)    g2d.drawLine(x, y, x + BLOCK_SIZE - 1, y);
-                    if ((cell & RIGHT_BIT) != 0)  g2d.drawLine(x + BLOCK_SIZE - 1, y, x + BLOCK_SIZE - 1, y + BLOCK_SIZE - 1);
-                    if ((cell & BOTTOM_BIT) != 0) g2d.drawLine(x, y + BLOCK_SIZE - 1, x + BLOCK_SIZE - 1, y + BLOCK_SIZE - 1);
+                    if ((cell & LEFT_BIT) != 0)   g2d.drawLine(x, y, x, y + t - 1);
+                    if ((cell & TOP_BIT) != 0)    g2d.drawLine(x, y, x + t - 1, y);
+                    if ((cell & RIGHT_BIT) != 0)  g2d.drawLine(x + t - 1, y, x + t - 1, y + t - 1);
+                    if ((cell & BOTTOM_BIT) != 0) g2d.drawLine(x, y + t - 1, x + t - 1, y + t - 1);
                     // Desenha comida (imagem) se presente
-                    if ((cell & FOOD_BIT) != 0) {
-                        g2d.drawImage(food, x + 4, y + 4, BLOCK_SIZE - 8, BLOCK_SIZE - 8, this);
+                    if (game.hasFood(idx)) {
+                        g2d.drawImage(sprite, x + pad, y + pad, null);
                     }
                     // Desenha saída (bloqueada = vermelho escuro, liberada = vermelho vivo com borda amarela)
                     if ((cell & EXIT_BIT) != 0) {
-                        g2d.setColor(exitUnlocked ? new Color(255,0,0) : new Color(110,0,0));
-                        g2d.fillRect(x + 2, y + 2, BLOCK_SIZE - 4, BLOCK_SIZE - 4);
-                        if (exitUnlocked) {
+                        g2d.setColor(game.isExitUnlocked() ? EXIT_OPEN_COLOR : EXIT_LOCKED_COLOR);
+                        g2d.fillRect(x + 2, y + 2, t - 4, t - 4);
+                        if (game.isExitUnlocked()) {
                             g2d.setColor(Color.YELLOW);
-                            g2d.drawRect(x + 2, y + 2, BLOCK_SIZE - 4, BLOCK_SIZE - 4);
+                            g2d.drawRect(x + 2, y + 2, t - 4, t - 4);
                         }
                     }
                 }
-                idx++;
             }
         }
     }
 
+    /**
+     * Comida no tamanho pedido, redimensionada só quando o zoom muda: escalar a imagem
+     * a cada célula e a cada quadro custa uma cópia temporária por chamada.
+     */
+    private BufferedImage foodSprite(int size) {
+        if (foodSprite == null || foodSprite.getWidth() != size) {
+            foodSprite = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = foodSprite.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(food, 0, 0, size, size, null);
+            g.dispose();
+        }
+        return foodSprite;
+    }
+
+    /**
+     * Gera o minimapa: cada pixel resume um bloco de minimapScale x minimapScale células,
+     * com cor proporcional à fração de células abertas do bloco. Feito uma vez por labirinto.
+     */
+    private void buildMinimap() {
+        minimapScale = Math.max(1, (Math.max(ROWS, COLS) + MINIMAP_SIZE - 1) / MINIMAP_SIZE);
+        int w = (COLS + minimapScale - 1) / minimapScale;
+        int h = (ROWS + minimapScale - 1) / minimapScale;
+        int[] open = new int[w * h];
+        for (int r = 0; r < ROWS; r++) {
+            int row = (r / minimapScale) * w;
+            for (int c = 0; c < COLS; c++) {
+                if (map[r][c] != 'X') open[row + c / minimapScale]++;
+            }
+        }
+        int[] rgb = new int[w * h];
+        int cells = minimapScale * minimapScale;
+        for (int i = 0; i < rgb.length; i++) {
+            float f = Math.min(1f, open[i] / (float) cells);   // 0 = só paredes, 1 = só corredores
+            int red   = (int) (WALL_COLOR.getRed()   + f * (MINIMAP_OPEN_COLOR.getRed()   - WALL_COLOR.getRed()));
+            int green = (int) (WALL_COLOR.getGreen() + f * (MINIMAP_OPEN_COLOR.getGreen() - WALL_COLOR.getGreen()));
+            int blue  = (int) (WALL_COLOR.getBlue()  + f * (MINIMAP_OPEN_COLOR.getBlue()  - WALL_COLOR.getBlue()));
+            rgb[i] = red << 16 | green << 8 | blue;
+        }
+        if (maze.exitRow >= 0) rgb[(maze.exitRow / minimapScale) * w + maze.exitCol / minimapScale] = EXIT_OPEN_COLOR.getRGB();
+        minimap = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        minimap.setRGB(0, 0, w, h, rgb, 0, w);
+    }
+
+    /** Minimapa no canto superior direito: labirinto reduzido, Pacman e área visível */
+    private void drawMinimap(Graphics2D g2d) {
+        if (!minimapVisible || camera.showsWholeMaze()) return;
+        if (minimap == null) buildMinimap();
+        int w = minimap.getWidth(), h = minimap.getHeight();
+        int ox = SCREEN_WIDTH - w - 6, oy = 6;
+        g2d.drawImage(minimap, ox, oy, this);
+        g2d.setStroke(WALL_STROKES[WALL_STROKES.length - 1]);
+        g2d.setColor(Color.white);
+        g2d.drawRect(ox - 1, oy - 1, w + 1, h + 1);
+        // Retângulo da área visível
+        int t = camera.tile(), k = minimapScale;
+        g2d.setColor(Color.yellow);
+        g2d.drawRect(ox + camera.firstCol() / k, oy + camera.firstRow() / k,
+                Math.max(1, (camera.lastCol() - camera.firstCol() + 1) / k), Math.max(1, (camera.lastRow() - camera.firstRow() + 1) / k));
+        // Pacman
+        g2d.fillRect(ox + game.getPacmanCol() / k - 1, oy + game.getPacmanRow() / k - 1, 3, 3);
+    }
+
     /** Exibe mensagens sobre saída, morte por fome, vitória ou instruções */
     private void drawExitStatus(Graphics2D g2d) {
-        if (exitRow >= 0) { // Só mostra algo se há saída definida
+        if (maze.exitRow >= 0) { // Só mostra algo se há saída definida
             g2d.setFont(smallFont);
-            if (!inGame && lives <=0 && !gameWon) { // Game Over
+            if (!game.isInGame() && game.getLives() <=0 && !game.isGameWon()) { // Game Over
                 g2d.setColor(Color.red);
                 g2d.drawString("Game Over - Morreu de fome!", 200, SCREEN_HEIGHT + 20);
                 g2d.setColor(Color.yellow);
                 g2d.drawString("Press SPACE para reiniciar", 200, SCREEN_HEIGHT + 38);
                 return;
             }
-            if (hungerJustDied) { // Mensagem após morte por tentar sair cedo
+            if (hungerMessageTick == tick - 1) { // Mensagem após morte por tentar sair cedo (durante um tick)
                 g2d.setColor(Color.orange);
                 g2d.drawString("Você tentou sair sem comer tudo!", 200, SCREEN_HEIGHT + 20);
                 g2d.setColor(Color.gray);
-                g2d.drawString("Resto: " + foodsLeft + " comidas", 200, SCREEN_HEIGHT + 38);
-                hungerJustDied = false; // Reseta flag (mensagem aparece uma vez)
+                g2d.drawString("Resto: " + game.getFoodsLeft() + " comidas", 200, SCREEN_HEIGHT + 38);
                 return;
             }
-            g2d.setColor(exitUnlocked ? new Color(255,80,80) : Color.gray);
-            String msg = exitUnlocked ? "Saida liberada!" : "Colete todas as comidas";
+            g2d.setColor(game.isExitUnlocked() ? EXIT_TEXT_COLOR : Color.gray);
+            String msg = game.isExitUnlocked() ? "Saida liberada!" : "Colete todas as comidas";
             g2d.drawString(msg, 200, SCREEN_HEIGHT + 20);
-            if (gameWon) {
+            if (game.isGameWon()) {
                 g2d.setColor(Color.yellow);
                 g2d.drawString("Venceu! Score +" + WIN_BONUS, 200, SCREEN_HEIGHT + 38);
             }
         }
     }
 
-    /** Desenha HUD: score, comidas restantes e vidas */
+    /** Desenha HUD: score, comidas restantes, vidas e nível */
     private void drawScore(Graphics2D g) {
         g.setFont(smallFont);
-        g.setColor(new Color(5,181,79));
-        g.drawString("Score: " + score, 10, SCREEN_HEIGHT + 20);
-        g.drawString("Restam: " + foodsLeft + "/" + totalFood, 10, SCREEN_HEIGHT + 38);
+        g.setColor(SCORE_COLOR);
+        g.drawString("Score: " + game.getScore(), 10, SCREEN_HEIGHT + 20);
+        g.drawString("Restam: " + game.getFoodsLeft() + "/" + game.getTotalFood(), 10, SCREEN_HEIGHT + 38);
         // Desenha corações representando vidas
-        for (int i = 0; i < lives; i++) {
+        for (int i = 0; i < game.getLives(); i++) {
             g.drawImage(heart, SCREEN_WIDTH - (i + 1) * 30, SCREEN_HEIGHT + 4, this);
         }
+        if (pack.size() > 1) g.drawString("Nível " + (level.index + 1) + "/" + pack.size(), SCREEN_WIDTH - 90, SCREEN_HEIGHT + 38);
+    }
+
+    /** Se a vitória ainda está na tela (pausa antes do próximo nível) */
+    private boolean showingWin() {
+        return wonTick >= 0 && tick - wonTick < WIN_PAUSE_TICKS;
     }
 
     /** Tela inicial antes do jogo começar */
     private void showIntro(Graphics2D g2d) {
         g2d.setColor(Color.yellow);
         g2d.drawString("Press SPACE para iniciar", 20, SCREEN_HEIGHT / 2);
-        g2d.drawString("Comidas: " + totalFood, 20, SCREEN_HEIGHT / 2 + 20);
+        g2d.drawString("Comidas: " + game.getTotalFood(), 20, SCREEN_HEIGHT / 2 + 20);
+        if (!maze.analysis.solvable) {
+            g2d.setColor(Color.red);
+            g2d.drawString("Aviso: labirinto sem solução", 20, SCREEN_HEIGHT / 2 + 40);
+        }
     }
 
-    /** Ciclo de renderização do Swing */
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
+    /**
+     * Desenha um quadro com o Pacman a {@code alpha} (0..1) do caminho entre o tick anterior
+     * e o atual. Saltos maiores que um bloco (volta para E) não são interpolados.
+     */
+    void render(Graphics2D g2d, double alpha) {
         g2d.setColor(Color.black);
         g2d.fillRect(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT + 40); // Fundo
-        drawMaze(g2d);      // Labirinto
+        boolean playing = game.isInGame() || showingWin();
+        int px = game.getPacmanX(), py = game.getPacmanY();
+        if (Math.abs(px - prevX) + Math.abs(py - prevY) < BLOCK_SIZE) {
+            px = prevX + (int) Math.round((px - prevX) * alpha);
+            py = prevY + (int) Math.round((py - prevY) * alpha);
+        }
+        camera.follow(px, py);
+
+        // Labirinto e Pacman em coordenadas do mundo, recortados à área visível
+        Shape clip = g2d.getClip();
+        g2d.clipRect(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+        g2d.translate(-camera.x(), -camera.y());
+        drawMaze(g2d);                                        // Labirinto
+        if (playing) drawPacman(g2d, px, py);                 // Pacman
+        g2d.translate(camera.x(), camera.y());
+        g2d.setClip(clip);
+
+        drawMinimap(g2d);   // Visão geral
         drawScore(g2d);     // HUD
-        if (inGame) playGame(g2d); else showIntro(g2d); // Estado do jogo
-        Toolkit.getDefaultToolkit().sync(); // Sincroniza (melhora suavidade em alguns SOs)
+        if (playing) drawExitStatus(g2d); else showIntro(g2d); // Estado do jogo
     }
 
-    /** Listener de teclado para controlar movimento e iniciar/reiniciar o jogo */
+    /** Listener de teclado: só enfileira (roda na EDT; o estado é da thread do laço) */
     private class TAdapter extends KeyAdapter {
         @Override public void keyPressed(KeyEvent e) {
-            int k = e.getKeyCode();
-            if (inGame) { // Enquanto o jogo está rodando
-                if (k == KeyEvent.VK_LEFT)  { req_dx = -1; req_dy = 0; }
-                else if (k == KeyEvent.VK_RIGHT){ req_dx = 1; req_dy = 0; }
-                else if (k == KeyEvent.VK_UP)   { req_dx = 0; req_dy = -1; }
-                else if (k == KeyEvent.VK_DOWN) { req_dx = 0; req_dy = 1; }
-                else if (k == KeyEvent.VK_A) {
-                    aiEnabled = !aiEnabled;
-                    if (DEBUG) System.out.println("AI " + (aiEnabled ? "ON" : "OFF"));
-                }
-                else if (k == KeyEvent.VK_ESCAPE) inGame = false; // Pausa / sai para intro
-            } else if (k == KeyEvent.VK_SPACE) { // Espaço inicia/reinicia
-                inGame = true;
-                initGame();
-            }
+            keys.add(e.getKeyCode());
         }
     }
 
-    /** Handler do Timer: apenas repinta */
-    @Override public void actionPerformed(ActionEvent e) { repaint(); }
-
-    /** Log simples de memória usada para depuração */
-    private void logMemory() {
-        Runtime rt = Runtime.getRuntime();
-        long used = (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
-        System.out.println("[DEBUG] Memória usada: " + used + " MB");
-    }
-
-    // ===================== API PARA AGENTE =====================
-    public int getRows() { return ROWS; }
-    public int getCols() { return COLS; }
-    public int getPacmanRow() { return pacman_y / BLOCK_SIZE; }
-    public int getPacmanCol() { return pacman_x / BLOCK_SIZE; }
-    public boolean isExitUnlocked() { return exitUnlocked; }
-
-    public boolean canMoveBetween(int r, int c, int nr, int nc) {
-        if (nr < 0 || nr >= ROWS || nc < 0 || nc >= COLS) return false;
-        short cell = screenData[r * COLS + c];
-        int dr = nr - r, dc = nc - c;
-        if (dc == -1 && (cell & LEFT_BIT) != 0) return false;
-        if (dc ==  1 && (cell & RIGHT_BIT) != 0) return false;
-        if (dr == -1 && (cell & TOP_BIT) != 0) return false;
-        return dr != 1 || (cell & BOTTOM_BIT) == 0;
-    }
-
-    // ===================== SENSOR =====================
-    /**
-     * Retorna uma matriz 3x3 de caracteres representando o sensor do agente.
-     * As 8 posições de borda indicam o conteúdo do labirinto relativo à posição atual
-     * do agente: 'X' (parede ou fora do mapa), 'o' (comida), '_' (corredor vazio),
-     * 'E' (entrada) e 'S' (saída). A posição (2,2) contém a orientação do agente:
-     * 'N' (norte), 'S' (sul), 'L' (leste) ou 'O' (oeste).
-     * Mapeamento (lin/col) relativo ao agente:
-     * (0,0) NW  (0,1) N   (0,2) NE
-     * (1,0) W   (1,1) C   (1,2) E
-     * (2,0) SW  (2,1) S   (2,2) ORIENTAÇÃO
-     */
-    public char[][] getSensor() {
-        char[][] s = new char[3][3];
-        // Posição do agente em coordenadas de célula
-        int row = pacman_y / BLOCK_SIZE;
-        int col = pacman_x / BLOCK_SIZE;
-
-        // Preenche as 8 posições de borda + centro (1,1) com o conteúdo do mapa
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                int rr = row + dr;
-                int cc = col + dc;
-                int i = dr + 1; // 0..2
-                int j = dc + 1; // 0..2
-                if (i == 2 && j == 2) {
-                    // (2,2) será preenchido com a orientação mais abaixo
-                    continue;
-                }
-                s[i][j] = cellCharAt(rr, cc);
+    /** Aplica uma tecla: movimento, IA, planejadores, zoom, minimapa, próximo nível e iniciar/reiniciar o jogo */
+    private void handleKey(int k) {
+        if (game.isInGame()) { // Enquanto o jogo está rodando
+            if (k == KeyEvent.VK_LEFT)  game.requestDirection(-1, 0);
+            else if (k == KeyEvent.VK_RIGHT) game.requestDirection(1, 0);
+            else if (k == KeyEvent.VK_UP)    game.requestDirection(0, -1);
+            else if (k == KeyEvent.VK_DOWN)  game.requestDirection(0, 1);
+            else if (k == KeyEvent.VK_A) {
+                game.setAiEnabled(!game.isAiEnabled());
+                if (DEBUG) System.out.println("AI " + (game.isAiEnabled() ? "ON" : "OFF"));
+            }
+            else if (k == KeyEvent.VK_P) { // Alterna planejador guloso / Monte Carlo
+                agent.setMonteCarlo(!agent.isMonteCarlo());
+                if (DEBUG) System.out.println("MCTS " + (agent.isMonteCarlo() ? "ON" : "OFF"));
+            }
+            else if (k == KeyEvent.VK_O) { // Alterna A* embutido / portfólio de buscas
+                agent.setPortfolio(!agent.isPortfolio());
+                if (DEBUG) System.out.println("Portfólio " + (agent.isPortfolio() ? "ON" : "OFF"));
             }
+            else if (k == KeyEvent.VK_ESCAPE) game.stop(); // Pausa / sai para intro
+        }
+        // Zoom e minimapa funcionam dentro e fora da partida
+        if (k == KeyEvent.VK_PLUS || k == KeyEvent.VK_EQUALS || k == KeyEvent.VK_ADD) camera.zoomIn();
+        else if (k == KeyEvent.VK_MINUS || k == KeyEvent.VK_SUBTRACT) camera.zoomOut();
+        else if (k == KeyEvent.VK_M) minimapVisible = !minimapVisible;
+        else if (k == KeyEvent.VK_N) nextLevel();               // Pula para o próximo nível
+        else if (!game.isInGame() && k == KeyEvent.VK_SPACE) { // Espaço inicia/reinicia
+            game.start();
         }
-        // Centro (1,1) reflete a célula atual
-        s[1][1] = cellCharAt(row, col);
-
-        // Define orientação do agente em (2,2)
-        s[2][2] = orientationChar();
-        return s;
-    }
-
-    /** Converte a célula (r,c) em um caractere de exibição para o sensor. */
-    private char cellCharAt(int r, int c) {
-        // Fora dos limites é tratado como parede 'X'
-        if (r < 0 || r >= ROWS || c < 0 || c >= COLS) return 'X';
-        char raw = map[r][c];
-        if (raw == 'X') return 'X';      // parede sólida
-        if (raw == 'E') return 'E';      // entrada
-        if (raw == 'S') return 'S';      // saída
-        // Caso contrário, aberto: consulta se ainda há comida nesta célula no estado atual
-        short cell = screenData[r * COLS + c];
-        if ((cell & FOOD_BIT) != 0) return 'o';
-        return '_';
-    }
-
-    /** Determina o caractere de orientação do agente. */
-    private char orientationChar() {
-        int dx = req_dx != 0 || req_dy != 0 ? req_dx : pacmand_x;
-        int dy = req_dx != 0 || req_dy != 0 ? req_dy : pacmand_y;
-        if (dx == -1) return 'O'; // Oeste
-        if (dx == 1)  return 'L'; // Leste
-        if (dy == -1) return 'N'; // Norte
-        if (dy == 1)  return 'S'; // Sul
-        // Parado: mantém um padrão (N)
-        return 'N';
     }
 }
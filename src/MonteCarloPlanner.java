@@ -0,0 +1,533 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Planejador por busca em árvore Monte Carlo (UCT) sobre o mapa acreditado pelo agente.
+ *
+ * Cada decisão tira uma foto do conhecimento (tipo de cada célula e índice das comidas
+ * conhecidas) e simula partidas a partir da posição atual. O estado simulado é pequeno e
+ * copiável ({@link RolloutState}: célula, bitset de comidas e contadores), então cada
+ * simulação parte de uma cópia barata da raiz em vez de um Game/Model inteiro.
+ *
+ * Células desconhecidas são sorteadas quando o sensor simulado as revela: abertas com a
+ * proporção de células abertas já vistas. O sorteio vale só para aquela simulação (carimbo
+ * por simulação, sem limpar vetores), e as abertas passam a ser caminháveis nela.
+ *
+ * Recompensas da simulação (com desconto por passo):
+ * - custo de passo (Game.STEP_PENALTY) e pontos por comida conhecida (Game.FOOD_VALUE)
+ * - bônus por célula desconhecida revelada pelo sensor 3x3 (valor esperado de comida escondida)
+ * - penalidade de morte por fome ao entrar na saída bloqueada; bônus de vitória se liberada
+ * - a simulação termina na primeira recompensa; se não houver nenhuma, menos a distância
+ *   (BFS) até o alvo mais próximo: comida, fronteira ou saída liberada
+ *
+ * Paralelismo na raiz: cada núcleo constrói a sua própria árvore até acabar o orçamento de
+ * tempo da decisão e, no fim, as visitas das ações da raiz são somadas. Mais núcleos dão mais
+ * simulações no mesmo tempo.
+ *
+ * O prazo é garantido por quem chama, não pelo pool (compartilhado por todos os
+ * planejadores do processo): no fim do orçamento, as árvores auxiliares que ainda estão na
+ * fila são retomadas e não rodam, e as que estão rodando param em poucas simulações. Só
+ * entram na votação as árvores construídas nesta decisão; com o pool ocupado por outros
+ * agentes a decisão sai só com a árvore da thread que chama, no mesmo prazo.
+ *
+ * A jogada do planejador guloso pode ser passada como preferência: a busca só a troca por
+ * outra cujo valor médio seja claramente maior ({@link #OVERRIDE_MARGIN}), então ela corrige
+ * a heurística onde as simulações discordam dela em vez de substituí-la por estimativas ruidosas.
+ */
+public class MonteCarloPlanner {
+
+    /** Estado de uma simulação: posição, comidas conhecidas restantes e contadores */
+    static final class RolloutState {
+        int cell;
+        long[] food;            // Bit i = comida conhecida i ainda no mapa
+        int knownFood;          // Comidas conhecidas restantes
+        int hiddenFood;         // Comidas ainda não vistas (o agente sabe quantas faltam)
+        boolean over;           // Simulação terminou (vitória ou morte por fome)
+
+        RolloutState(int foodWords) {
+            food = new long[foodWords];
+        }
+
+        void copyFrom(RolloutState o) {
+            if (food.length < o.food.length) food = new long[o.food.length];
+            System.arraycopy(o.food, 0, food, 0, o.food.length);
+            cell = o.cell;
+            knownFood = o.knownFood;
+            hiddenFood = o.hiddenFood;
+            over = o.over;
+        }
+    }
+
+    // Direções na mesma ordem do Agent: cima, baixo, direita, esquerda
+    static final int[] DR = {-1, 1, 0, 0};
+    static final int[] DC = {0, 0, 1, -1};
+
+    // Tipos de célula da foto do conhecimento
+    private static final byte UNKNOWN = 0, OPEN = 1, WALL = 2, EXIT = 3;
+
+    public static final long DEFAULT_BUDGET_NANOS = 5_000_000; // Orçamento por decisão
+    private static final int ROLLOUT_DEPTH = 30;        // Passos aleatórios depois da árvore
+    private static final int MAX_NODES = 1 << 16;       // Nós por árvore (depois só simula)
+    private static final int INITIAL_NODES = 1 << 10;   // Vetores da árvore crescem sob demanda
+    private static final int CLOCK_EVERY = 4;           // Simulações entre leituras do relógio
+    private static final double OVERRIDE_MARGIN = 50.0;  // Vantagem de valor médio para trocar a jogada gulosa
+    private static final int OVERRIDE_VISITS = 32;      // Visitas mínimas da alternativa
+    private static final double GAMMA = 0.98;           // Desconto por passo
+    private static final double EXPLORATION = 8.0;      // Constante do UCB1 (escala das recompensas)
+    private static final double HUNGER_PENALTY = -500;  // Perder uma vida e voltar para E
+    private static final double EXPLORE_VALUE = 0.5;    // Valor de revelar uma célula, além da comida esperada
+    private static final double GREEDY_ROLLOUT = 0.7;   // Chance de seguir a distância ao alvo na simulação
+    private static final int UNREACHABLE = 1 << 20;
+
+    // Núcleos para as árvores (a thread que chama usa um deles); pool compartilhado, prazo no chamador
+    private static final int WORKERS = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService HELPERS = Executors.newFixedThreadPool(Math.max(1, WORKERS - 1), r -> {
+        Thread t = new Thread(r, "monte-carlo");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int rows, cols;
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+
+    // Foto do conhecimento, somente leitura durante a busca
+    private final byte[] type;
+    private final int[] foodSlot;        // célula -> índice da comida conhecida (-1 = nenhuma)
+    private final int[] targetDist;      // Passos até o alvo mais próximo
+    private final int[] queue;
+    private final RolloutState root;
+    private double revealValue;
+    private int openChance;              // Chance (de 1024) de uma célula desconhecida ser aberta
+
+    private final Worker[] workers;
+    private volatile long deadline;
+    private int decision;                // Número da decisão (as árvores guardam para qual foram feitas)
+    private final long[] rootVisits = new long[4];   // Soma das raízes por ação
+    private final double[] rootValue = new double[4];
+    private long lastSimulations;
+    private int lastTrees;
+
+    public MonteCarloPlanner(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        int cells = rows * cols;
+        this.type = new byte[cells];
+        this.foodSlot = new int[cells];
+        this.targetDist = new int[cells];
+        this.queue = new int[cells];
+        this.root = new RolloutState(1);
+        this.workers = new Worker[WORKERS];
+        for (int i = 0; i < WORKERS; i++) workers[i] = new Worker(cells, 0x9E3779B97F4A7C15L * (i + 1));
+    }
+
+    /** Tempo máximo de busca por decisão */
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    /** Simulações feitas na última decisão (somando todos os núcleos) */
+    public long lastSimulations() {
+        return lastSimulations;
+    }
+
+    /** Árvores que entraram na última decisão (1 = só a da thread que chama) */
+    public int lastTrees() {
+        return lastTrees;
+    }
+
+    /** Como {@link #decide(char[][], int, int, int)} sem jogada preferida */
+    public int decide(char[][] knowledge, int cell, int foodsLeft) {
+        return decide(knowledge, cell, foodsLeft, -1);
+    }
+
+    /**
+     * Escolhe a direção (índice em DR/DC) a partir de {@code cell}, em até o orçamento de
+     * tempo (contado desde a chamada, incluindo a foto do conhecimento).
+     * {@code foodsLeft} é o total de comidas que faltam (vistas ou não); {@code preferred} é a
+     * jogada do planejador guloso (-1 = nenhuma). Devolve -1 só se não há movimento possível
+     * pelo que o agente conhece; com orçamento curto demais, a preferida ou um movimento legal.
+     */
+    public int decide(char[][] knowledge, int cell, int foodsLeft, int preferred) {
+        long start = System.nanoTime();
+        snapshot(knowledge, cell, foodsLeft);
+        int legal = legalMoves(cell);
+        if (legal == 0) return -1;
+        if (Integer.bitCount(legal) == 1) return Integer.numberOfTrailingZeros(legal); // Nada a decidir
+
+        decision++;
+        deadline = start + budgetNanos;
+        for (int i = 1; i < workers.length; i++) workers[i].queue(decision);
+        workers[0].search(decision);
+        for (int i = 1; i < workers.length; i++) workers[i].reclaim();
+
+        // Soma as raízes das árvores desta decisão: ação mais visitada (empate: maior valor médio)
+        long[] visits = rootVisits;
+        double[] value = rootValue;
+        java.util.Arrays.fill(visits, 0);
+        java.util.Arrays.fill(value, 0);
+        lastSimulations = 0;
+        lastTrees = 0;
+        for (Worker w : workers) {
+            if (w.builtFor != decision) continue;
+            lastTrees++;
+            lastSimulations += w.visits[0];
+            for (int a = 0; a < 4; a++) {
+                int child = w.child[a];
+                if (child < 0) continue;
+                visits[a] += w.visits[child];
+                value[a] += w.value[child];
+            }
+        }
+        int best = -1;
+        for (int a = 0; a < 4; a++) {
+            if (visits[a] == 0) continue;
+            if (best < 0 || visits[a] > visits[best]
+                    || (visits[a] == visits[best] && value[a] / visits[a] > value[best] / visits[best])) best = a;
+        }
+        if (preferred < 0 || (legal & 1 << preferred) == 0 || best == preferred) {
+            // Prazo esgotado antes de visitar a raiz: qualquer movimento legal, nunca parado
+            return best >= 0 ? best : Integer.numberOfTrailingZeros(legal);
+        }
+        // Troca a jogada gulosa só com vantagem clara e amostras suficientes
+        if (best < 0 || visits[preferred] == 0) return preferred;
+        boolean clearlyBetter = visits[best] >= OVERRIDE_VISITS
+                && value[best] / visits[best] - value[preferred] / visits[preferred] > OVERRIDE_MARGIN;
+        return clearlyBetter ? best : preferred;
+    }
+
+    // ===================== FOTO DO CONHECIMENTO =====================
+
+    private void snapshot(char[][] knowledge, int cell, int foodsLeft) {
+        int known = 0, unknown = 0, open = 0;
+        for (int r = 0; r < rows; r++) {
+            char[] line = knowledge[r];
+            for (int c = 0; c < cols; c++) {
+                int i = r * cols + c;
+                char ch = line[c];
+                type[i] = ch == '?' ? UNKNOWN : ch == 'X' ? WALL : ch == 'S' ? EXIT : OPEN;
+                foodSlot[i] = ch == 'o' ? known++ : -1;
+                if (ch == '?') unknown++;
+                else if (ch != 'X') open++;
+            }
+        }
+        int seen = rows * cols - unknown;
+        openChance = seen == 0 ? 512 : (int) (1024L * open / seen);
+        int words = Math.max(1, (known + 63) >>> 6);
+        if (root.food.length < words) root.food = new long[words];
+        java.util.Arrays.fill(root.food, 0L);
+        for (int f = 0; f < known; f++) root.food[f >>> 6] |= 1L << f;
+        root.cell = cell;
+        root.knownFood = known;
+        root.hiddenFood = Math.max(0, foodsLeft - known);
+        root.over = false;
+        revealValue = EXPLORE_VALUE + (unknown == 0 ? 0 : (double) Game.FOOD_VALUE * root.hiddenFood / unknown);
+        buildTargetDistances(foodsLeft == 0);
+    }
+
+    /** BFS com várias origens: comidas conhecidas, fronteiras e a saída (se liberada) */
+    private void buildTargetDistances(boolean exitOpen) {
+        java.util.Arrays.fill(targetDist, UNREACHABLE);
+        int head = 0, tail = 0;
+        for (int i = 0; i < type.length; i++) {
+            boolean target = foodSlot[i] >= 0 || (type[i] == EXIT && exitOpen)
+                    || (type[i] == OPEN && touchesUnknown(i));
+            if (target) {
+                targetDist[i] = 0;
+                queue[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int cur = queue[head++];
+            int r = cur / cols, c = cur % cols;
+            for (int d = 0; d < 4; d++) {
+                int nr = r + DR[d], nc = c + DC[d];
+                if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                int np = nr * cols + nc;
+                if (type[np] != OPEN || targetDist[np] != UNREACHABLE) continue; // Saída bloqueada não é passagem
+                targetDist[np] = targetDist[cur] + 1;
+                queue[tail++] = np;
+            }
+        }
+    }
+
+    private boolean touchesUnknown(int cell) {
+        int r = cell / cols, c = cell % cols;
+        for (int d = 0; d < 4; d++) {
+            int nr = r + DR[d], nc = c + DC[d];
+            if (nr >= 0 && nr < rows && nc >= 0 && nc < cols && type[nr * cols + nc] == UNKNOWN) return true;
+        }
+        return false;
+    }
+
+    /** Bits das direções possíveis a partir da célula (conhecidas e sem parede) */
+    private int legalMoves(int cell) {
+        int r = cell / cols, c = cell % cols;
+        int mask = 0;
+        for (int d = 0; d < 4; d++) {
+            int nr = r + DR[d], nc = c + DC[d];
+            if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+            byte t = type[nr * cols + nc];
+            if (t == OPEN || t == EXIT) mask |= 1 << d;
+        }
+        return mask;
+    }
+
+    /** Bits das direções que levam à saída */
+    private int exitMoves(int cell) {
+        int r = cell / cols, c = cell % cols;
+        int mask = 0;
+        for (int d = 0; d < 4; d++) {
+            int nr = r + DR[d], nc = c + DC[d];
+            if (nr >= 0 && nr < rows && nc >= 0 && nc < cols && type[nr * cols + nc] == EXIT) mask |= 1 << d;
+        }
+        return mask;
+    }
+
+    // ===================== BUSCA (UMA ÁRVORE POR NÚCLEO) =====================
+
+    private static final int IDLE = 0, QUEUED = 1, RUNNING = 2;
+
+    private final class Worker {
+        // Árvore em vetores: filho da ação a do nó n em child[n * 4 + a]; crescem até MAX_NODES
+        int[] child = new int[INITIAL_NODES * 4];
+        int[] visits = new int[INITIAL_NODES];
+        double[] value = new double[INITIAL_NODES];
+        int[] pathNodes = new int[INITIAL_NODES];
+        int nodes;
+
+        final RolloutState state = new RolloutState(1);
+        final int[] revealed;     // (simulação << 1) | aberta, para células desconhecidas sorteadas
+        int simulation;
+        long seed;
+
+        // Ciclo no pool: IDLE -> QUEUED (chamador) -> RUNNING (auxiliar) -> IDLE
+        final AtomicInteger status = new AtomicInteger(IDLE);
+        final Runnable task = this::runQueued;
+        volatile int queuedFor;
+        int builtFor = -1;        // Decisão em que a árvore foi construída
+
+        Worker(int cells, long seed) {
+            this.revealed = new int[cells];
+            this.seed = seed;
+        }
+
+        /** Põe a árvore na fila do pool para a decisão dada */
+        void queue(int decision) {
+            queuedFor = decision;
+            if (status.compareAndSet(IDLE, QUEUED)) HELPERS.execute(task);
+        }
+
+        /** Roda no pool; uma tarefa retomada pelo chamador (ou repetida) não faz nada */
+        private void runQueued() {
+            if (!status.compareAndSet(QUEUED, RUNNING)) return;
+            try {
+                search(queuedFor);
+            } finally {
+                status.set(IDLE);
+            }
+        }
+
+        /**
+         * Fim do prazo: se a árvore ainda não começou, desiste dela; se está rodando, espera
+         * (ela confere o relógio a cada CLOCK_EVERY simulações)
+         */
+        void reclaim() {
+            if (status.compareAndSet(QUEUED, IDLE)) return;
+            while (status.get() != IDLE) Thread.yield();
+        }
+
+        void search(int decision) {
+            nodes = 1;
+            java.util.Arrays.fill(child, 0, 4, -1);
+            visits[0] = 0;
+            value[0] = 0;
+            builtFor = decision;
+            while (System.nanoTime() < deadline) {
+                for (int i = 0; i < CLOCK_EVERY; i++) simulate();
+            }
+        }
+
+        private void grow() {
+            int cap = Math.min(MAX_NODES, visits.length * 2);
+            child = java.util.Arrays.copyOf(child, cap * 4);
+            visits = java.util.Arrays.copyOf(visits, cap);
+            value = java.util.Arrays.copyOf(value, cap);
+            pathNodes = java.util.Arrays.copyOf(pathNodes, cap);
+        }
+
+        private void simulate() {
+            if (++simulation == 1 << 30) { // Evita estouro do carimbo
+                java.util.Arrays.fill(revealed, 0);
+                simulation = 1;
+            }
+            state.copyFrom(root);
+            double ret = 0, discount = 1;
+            int node = 0, depth = 0, last = -1;
+            boolean rewarded = false;
+            pathNodes[depth++] = 0;
+
+            // A simulação vai até a primeira recompensa (comida, célula revelada ou saída): as
+            // distâncias aos alvos são fixas na decisão, então seguir depois de "consumir" um
+            // alvo só acrescentaria ruído. Assim cada ação é avaliada pelo quão cedo e quão bem
+            // ela chega na próxima recompensa.
+
+            // Seleção/expansão pela árvore (UCB1)
+            while (!state.over && !rewarded) {
+                int moves = moves(state.cell);
+                if (moves == 0) break;
+                int untried = 0;
+                for (int a = 0; a < 4; a++) {
+                    if ((moves & 1 << a) != 0 && child[node * 4 + a] < 0) untried |= 1 << a;
+                }
+                int a;
+                if (untried != 0) {
+                    if (nodes == visits.length) {
+                        if (nodes >= MAX_NODES) break;     // Árvore cheia: continua só com simulação
+                        grow();
+                    }
+                    a = pick(untried);
+                    int created = nodes++;
+                    java.util.Arrays.fill(child, created * 4, created * 4 + 4, -1);
+                    visits[created] = 0;
+                    value[created] = 0;
+                    child[node * 4 + a] = created;
+                    node = created;
+                } else {
+                    a = selectUcb(node, moves);
+                    node = child[node * 4 + a];
+                }
+                double r = step(a);
+                ret += discount * r;
+                discount *= GAMMA;
+                rewarded = r > Game.STEP_PENALTY;
+                last = a;
+                pathNodes[depth++] = node;
+                if (untried != 0) break;                    // Um nó novo por simulação
+            }
+
+            // Simulação rápida a partir da folha, sem entrar na saída ainda bloqueada
+            for (int i = 0; i < ROLLOUT_DEPTH && !state.over && !rewarded; i++) {
+                int moves = moves(state.cell);
+                if (state.knownFood + state.hiddenFood > 0) moves &= ~exitMoves(state.cell);
+                if (moves == 0) break;
+                last = rolloutMove(moves, last);
+                double r = step(last);
+                ret += discount * r;
+                discount *= GAMMA;
+                rewarded = r > Game.STEP_PENALTY;
+            }
+            if (!state.over && !rewarded && type[state.cell] != UNKNOWN) {
+                ret -= discount * Math.min(targetDist[state.cell], ROLLOUT_DEPTH * 4);
+            }
+
+            for (int i = 0; i < depth; i++) {
+                visits[pathNodes[i]]++;
+                value[pathNodes[i]] += ret;
+            }
+        }
+
+        private int selectUcb(int node, int moves) {
+            double logN = Math.log(Math.max(1, visits[node]));
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int a = 0; a < 4; a++) {
+                if ((moves & 1 << a) == 0) continue;
+                int ch = child[node * 4 + a];
+                double score = value[ch] / visits[ch] + EXPLORATION * Math.sqrt(logN / visits[ch]);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = a;
+                }
+            }
+            return best;
+        }
+
+        /** Direções possíveis nesta simulação: células conhecidas ou sorteadas como abertas */
+        private int moves(int cell) {
+            int r = cell / cols, c = cell % cols;
+            int mask = 0;
+            for (int d = 0; d < 4; d++) {
+                int nr = r + DR[d], nc = c + DC[d];
+                if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                int n = nr * cols + nc;
+                byte t = type[n];
+                if (t == OPEN || t == EXIT || (t == UNKNOWN && revealed[n] == (simulation << 1 | 1))) mask |= 1 << d;
+            }
+            return mask;
+        }
+
+        /**
+         * Política da simulação: em geral segue a distância ao alvo; senão (ou fora do
+         * conhecido) escolhe ao acaso, evitando voltar pelo mesmo caminho
+         */
+        private int rolloutMove(int moves, int last) {
+            if ((next() & 1023) < GREEDY_ROLLOUT * 1024) {
+                int r = state.cell / cols, c = state.cell % cols;
+                int best = -1, bestDist = Integer.MAX_VALUE;
+                for (int a = 0; a < 4; a++) {
+                    if ((moves & 1 << a) == 0) continue;
+                    int d = targetDist[(r + DR[a]) * cols + c + DC[a]];
+                    if (d < bestDist) {
+                        bestDist = d;
+                        best = a;
+                    }
+                }
+                if (best >= 0 && bestDist < UNREACHABLE) return best;
+            }
+            int back = last < 0 ? 0 : 1 << (last ^ 1);     // Direção oposta (cima/baixo, direita/esquerda)
+            return pick(moves != back ? moves & ~back : moves);
+        }
+
+        /** Aplica o movimento no estado simulado e devolve a recompensa */
+        private double step(int a) {
+            RolloutState s = state;
+            int r = s.cell / cols + DR[a], c = s.cell % cols + DC[a];
+            int cell = r * cols + c;
+            s.cell = cell;
+            if (type[cell] == EXIT) {
+                s.over = true;
+                return s.knownFood == 0 && s.hiddenFood == 0 ? Game.WIN_BONUS : HUNGER_PENALTY;
+            }
+            double reward = Game.STEP_PENALTY;
+            int f = foodSlot[cell];
+            if (f >= 0 && (s.food[f >>> 6] & 1L << f) != 0) {
+                s.food[f >>> 6] &= ~(1L << f);
+                s.knownFood--;
+                reward += Game.FOOD_VALUE;
+            }
+            // Sensor 3x3 (sem o canto inferior direito, que mostra a orientação)
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr == 1 && dc == 1) continue;
+                    int nr = r + dr, nc = c + dc;
+                    if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                    int n = nr * cols + nc;
+                    if (type[n] == UNKNOWN && revealed[n] >> 1 != simulation) {
+                        boolean open = (next() & 1023) < openChance;
+                        revealed[n] = simulation << 1 | (open ? 1 : 0);
+                        reward += revealValue;
+                    }
+                }
+            }
+            return reward;
+        }
+
+        /** Direção aleatória entre os bits de {@code mask} */
+        private int pick(int mask) {
+            int count = Integer.bitCount(mask);
+            int k = (int) ((next() >>> 33) % count);
+            for (int a = 0; a < 4; a++) {
+                if ((mask & 1 << a) != 0 && k-- == 0) return a;
+            }
+            return -1;
+        }
+
+        private long next() { // xorshift64
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            return seed;
+        }
+    }
+}
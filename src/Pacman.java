@@ -2,17 +2,27 @@ import javax.swing.*;
 
 public class Pacman extends JFrame {
 
+    private final Model model = new Model();
+
     public Pacman() {
-        Model model = new Model();
         add(model);
         setTitle("Pacman");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override public void windowClosing(java.awt.event.WindowEvent e) {
+                model.stop();       // Para de desenhar antes de a janela ser destruída
+            }
+        });
         setResizable(false);
         pack();
         setLocationRelativeTo(null);
     }
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> new Pacman().setVisible(true));
+        SwingUtilities.invokeLater(() -> {
+            Pacman frame = new Pacman();
+            frame.setVisible(true);
+            frame.model.start();    // BufferStrategy precisa da janela visível
+        });
     }
 }
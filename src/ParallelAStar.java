@@ -0,0 +1,267 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A* bidirecional com as duas buscas em núcleos diferentes: a direta (origem → destino)
+ * roda na thread que chama e a reversa (destino → origem) numa thread auxiliar.
+ *
+ * Cada lado publica o custo g das células que alcança num vetor atômico próprio e, logo
+ * depois, lê o g do outro lado na mesma célula; como escrita e leitura são voláteis, pelo
+ * menos um dos lados sempre enxerga o encontro. O melhor custo de encontro μ (e a célula)
+ * fica num AtomicLong atualizado por CAS, sem travas.
+ *
+ * As chaves usam o potencial médio (h até o destino - h até a origem) / 2, consistente nos
+ * dois sentidos; guardamos o dobro para ficar em inteiros: 2g + h(destino) - h(origem). Com
+ * ele a busca pode parar quando a menor chave de um lado somada à do outro chega a 2μ, bem
+ * antes do critério clássico (menor f de um lado >= μ), que faz as duas frentes se
+ * cruzarem quase inteiras. Cada lado publica a sua menor chave; como as chaves retiradas
+ * só crescem, um valor atrasado ainda é um limite inferior válido.
+ *
+ * Os vetores publicados guardam (consulta << 32 | g), então não precisam ser limpos entre
+ * consultas. A grade é vista só pelo {@link Moves}; a busca reversa percorre as arestas ao
+ * contrário, consultando sempre o movimento no sentido da origem para o destino.
+ *
+ * Se a thread que chama for interrompida a busca para e devolve -1 (com a interrupção
+ * mantida), depois de esperar a busca reversa encerrar.
+ *
+ * As buscas reversas dividem um pool limitado a (núcleos - 1) threads: com todas ocupadas
+ * (muitas consultas longas ao mesmo tempo, ex.: sessões do SessionHost) a consulta roda
+ * como A* sequencial na própria thread, sem criar threads novas.
+ */
+public class ParallelAStar {
+
+    /** Movimento permitido da célula (r, c) para a vizinha (nr, nc) */
+    public interface Moves {
+        boolean allowed(int r, int c, int nr, int nc);
+    }
+
+    private static final int[] DX = {0, 0, 1, -1};
+    private static final int[] DY = {-1, 1, 0, 0};
+    private static final long NO_MEET = Long.MAX_VALUE;
+    private static final int FORWARD = 0, BACKWARD = 1;
+    private static final int KEY_UNSET = Integer.MIN_VALUE / 2;    // Lado ainda não começou
+    private static final int EXHAUSTED = Integer.MAX_VALUE;        // Lado sem células na fila
+
+    // Threads auxiliares compartilhadas (uma por busca reversa em andamento, no máximo núcleos - 1);
+    // sem fila: se nenhuma estiver livre a submissão é recusada na hora
+    private static final int HELPER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final ThreadPoolExecutor HELPERS = new ThreadPoolExecutor(0, HELPER_THREADS,
+            30, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+        Thread t = new Thread(r, "parallel-astar");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int rows, cols;
+    private final Moves moves;
+    private final AtomicLongArray forwardG, backwardG;   // (consulta << 32) | g
+    private final SearchBuffers backward = new SearchBuffers(); // Busca reversa (thread auxiliar)
+    private final AtomicLong best = new AtomicLong(NO_MEET);   // (μ << 32) | célula de encontro
+    private final AtomicIntegerArray topKey = new AtomicIntegerArray(2); // Menor chave de cada lado
+    private final Runnable backwardTask = this::searchBackward;
+    private volatile boolean done;
+    private final int[] expanded = new int[2];             // Células expandidas por lado na última busca
+    private int query;
+    private int start, goal;
+
+    private int[] path = new int[64];
+    private GridPlanner.AStar sequential;                  // Sem thread auxiliar livre (criado sob demanda)
+    private final int[] goalBuf = new int[1];
+
+    public ParallelAStar(int rows, int cols, Moves moves) {
+        this.rows = rows;
+        this.cols = cols;
+        this.moves = moves;
+        this.forwardG = new AtomicLongArray(rows * cols);
+        this.backwardG = new AtomicLongArray(rows * cols);
+        backward.ensure(rows * cols);
+    }
+
+    /** Vale a pena usar: há mais de um núcleo para as duas buscas */
+    public static boolean available() {
+        return Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    /**
+     * Caminho mínimo de {@code start} até {@code goal} (índices lineares).
+     * Devolve o número de passos (caminho em {@link #path()}, sem a origem) ou -1.
+     */
+    public int search(int start, int goal) {
+        if (start == goal) return 0;
+        this.start = start;
+        this.goal = goal;
+        query++;
+        best.set(NO_MEET);
+        topKey.set(FORWARD, KEY_UNSET);
+        topKey.set(BACKWARD, KEY_UNSET);
+        done = false;
+
+        Future<?> helper;
+        try {
+            helper = HELPERS.submit(backwardTask);
+        } catch (RejectedExecutionException e) {
+            return searchSequential(start, goal);
+        }
+        SearchBuffers fwd = SearchBuffers.get(rows * cols);
+        try {
+            run(fwd, FORWARD, forwardG, backwardG, start, goal);
+        } finally {
+            done = true;
+            awaitHelper(helper);
+        }
+        if (Thread.currentThread().isInterrupted()) return -1;
+
+        long meet = best.get();
+        if (meet == NO_MEET) return -1;
+        return buildPath(fwd, (int) meet);
+    }
+
+    /** A* numa thread só (pool de auxiliares cheio); mesmo contrato de {@link #search} */
+    private int searchSequential(int start, int goal) {
+        if (sequential == null) sequential = new GridPlanner.AStar(rows, cols, moves);
+        goalBuf[0] = goal;
+        int len = sequential.search(start, goalBuf, 1);
+        expanded[FORWARD] = expanded[BACKWARD] = 0;
+        if (len < 0) return -1;                    // Sem caminho ou interrompida (interrupção mantida)
+        if (path.length < len) path = new int[Math.max(len, path.length * 2)];
+        System.arraycopy(sequential.path(), 0, path, 0, len);
+        return len;
+    }
+
+    /**
+     * Espera a busca reversa terminar mesmo se esta thread for interrompida: os vetores dela
+     * são reutilizados na próxima consulta. Com {@code done} ligado ela para em uma célula.
+     */
+    private static void awaitHelper(Future<?> helper) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    helper.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Falha na busca reversa", e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Células expandidas pela busca direta (0) ou reversa (1) na última consulta */
+    public int expanded(int side) {
+        return expanded[side];
+    }
+
+    /** Caminho da última busca bem-sucedida (válido até a próxima) */
+    public int[] path() {
+        return path;
+    }
+
+    private void searchBackward() {
+        run(backward, BACKWARD, backwardG, forwardG, goal, start);
+    }
+
+    /** Um lado da busca: A* de {@code from} em direção a {@code to} */
+    private void run(SearchBuffers b, int side, AtomicLongArray mine, AtomicLongArray other, int from, int to) {
+        long stamp = (long) query << 32;
+        int fromRow = from / cols, fromCol = from % cols;
+        int toRow = to / cols, toCol = to % cols;
+
+        b.begin();
+        b.g[from] = 0;
+        b.f[from] = dist(fromRow, fromCol, toRow, toCol);
+        b.parentDir[from] = -1;
+        b.push(from);
+        publish(mine, other, stamp, from, 0);
+        expanded[side] = 0;
+
+        while (!done) {
+            if (b.isEmpty()) {
+                // Este lado alcançou tudo o que podia com g final; se havia caminho o encontro
+                // no ponto de partida do outro lado já foi registrado, então μ é mínimo
+                topKey.set(side, EXHAUSTED);
+                return;
+            }
+            int key = b.f[b.peek()];
+            topKey.set(side, key);
+            int otherKey = topKey.get(1 - side);
+            if (otherKey == EXHAUSTED || (long) key + otherKey >= 2 * (best.get() >>> 32)) {
+                done = true;               // Nenhum caminho ainda não visto é mais curto que μ
+                return;
+            }
+            int cur = b.pop();
+            b.close(cur);
+            if (GridPlanner.cancelled(++expanded[side])) {
+                done = true;               // Consulta cancelada (só a thread que chama é interrompida)
+                return;
+            }
+
+            int r = cur / cols, c = cur % cols;
+            for (int i = 0; i < 4; i++) {
+                int nr = r + DY[i];
+                int nc = c + DX[i];
+                if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
+                int np = nr * cols + nc;
+                if (b.closed(np)) continue;
+                boolean ok = side == FORWARD ? moves.allowed(r, c, nr, nc) : moves.allowed(nr, nc, r, c);
+                if (!ok) continue;
+
+                int g = b.g[cur] + 1;
+                if (!b.seen(np) || g < b.g[np]) {
+                    b.g[np] = g;
+                    b.f[np] = 2 * g + dist(nr, nc, toRow, toCol) - dist(nr, nc, fromRow, fromCol);
+                    b.parentDir[np] = (byte) i;
+                    b.push(np);
+                    publish(mine, other, stamp, np, g);
+                }
+            }
+        }
+    }
+
+    /** Publica g da célula e verifica se o outro lado já passou por ela */
+    private void publish(AtomicLongArray mine, AtomicLongArray other, long stamp, int cell, int g) {
+        mine.set(cell, stamp | g);
+        long o = other.get(cell);
+        if ((o & 0xFFFFFFFF00000000L) != stamp) return;
+        long candidate = (long) (g + (int) o) << 32 | cell;
+        long cur;
+        while (candidate < (cur = best.get())) {
+            if (best.compareAndSet(cur, candidate)) return;
+        }
+    }
+
+    /** Junta a metade direta (origem → encontro) e a reversa (encontro → destino) */
+    private int buildPath(SearchBuffers fwd, int meet) {
+        // g final dos dois lados (μ pode ter sido registrado antes de uma redução de chave)
+        int ahead = fwd.g[meet];
+        int len = ahead + backward.g[meet];
+        if (path.length < len) path = new int[Math.max(len, path.length * 2)];
+        int cur = meet;
+        for (int i = ahead - 1; i >= 0; i--) {
+            path[i] = cur;
+            int d = fwd.parentDir[cur];
+            cur -= DY[d] * cols + DX[d];
+        }
+        cur = meet;
+        for (int i = ahead; i < len; i++) {
+            int d = backward.parentDir[cur];
+            cur -= DY[d] * cols + DX[d];
+            path[i] = cur;
+        }
+        return len;
+    }
+
+    private static int dist(int r1, int c1, int r2, int c2) {
+        return Math.abs(r1 - r2) + Math.abs(c1 - c2);
+    }
+}
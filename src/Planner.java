@@ -0,0 +1,28 @@
+/**
+ * Estratégia de busca de caminho sobre a grade de conhecimento do agente.
+ *
+ * Uma consulta parte de {@code start} e termina no alvo mais próximo (em passos) dentre
+ * {@code goals[0..goalCount)}. A grade é vista só através de {@link ParallelAStar.Moves},
+ * que o agente monta sobre o que já sabe do labirinto.
+ *
+ * Buscas devem conferir de tempos em tempos se a thread foi interrompida e, nesse caso,
+ * devolver {@link #CANCELLED}: é assim que o {@link PortfolioPlanner} cancela as perdedoras.
+ */
+public interface Planner {
+
+    int NO_PATH = -1;       // Nenhum alvo alcançável
+    int UNSUPPORTED = -2;   // A estratégia não atende este tipo de consulta
+    int CANCELLED = -3;     // Thread interrompida durante a busca
+
+    /** Nome curto (usado nas estatísticas do portfólio) */
+    String name();
+
+    /**
+     * Caminho mínimo até o alvo mais próximo. Devolve o número de passos (caminho em
+     * {@link #path()}, sem a origem), {@link #NO_PATH}, {@link #UNSUPPORTED} ou {@link #CANCELLED}.
+     */
+    int search(int start, int[] goals, int goalCount);
+
+    /** Caminho da última busca bem-sucedida (válido até a próxima) */
+    int[] path();
+}
@@ -0,0 +1,52 @@
+/**
+ * Compara o agente usando o portfólio de buscas ({@link PortfolioPlanner}) com o A* padrão.
+ *
+ * Joga as mesmas partidas nos dois modos, em labirintos com poucos e muitos ciclos, e mostra
+ * o tempo e os ticks de cada modo e, no fim, as vitórias por perfil gravadas em
+ * {@link PortfolioPlanner#DEFAULT_STATS_FILE}. A primeira execução inclui o aprendizado; as
+ * seguintes já partem das vitórias gravadas:
+ *
+ *   java -cp out PortfolioBenchmark [partidas] [lado]
+ */
+public class PortfolioBenchmark {
+
+    private static final int MAX_TICKS = 200_000;   // Partida sem vitória (ex.: comida atrás da saída)
+    private static final double[] LOOP_RATIOS = {0, 0.05, 0.3};
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int side = args.length > 1 ? Integer.parseInt(args[1]) : 61;
+        PortfolioPlanner.Stats stats = PortfolioPlanner.Stats.open(PortfolioPlanner.DEFAULT_STATS_FILE);
+        System.out.println("Núcleos disponíveis: " + Runtime.getRuntime().availableProcessors());
+        for (double loops : LOOP_RATIOS) run(side, loops, games, stats);
+        stats.save();
+        System.out.print(stats);
+    }
+
+    private static void run(int side, double loops, int games, PortfolioPlanner.Stats stats) {
+        long[] nanos = new long[2];
+        long[] ticks = new long[2];
+        int[] lost = new int[2];
+        for (int g = 0; g < games; g++) {
+            Maze maze = Maze.of(MazeGenerator.generate(side, side, side / 3, loops, g));
+            for (int mode = 0; mode < 2; mode++) {
+                Game game = new Game(maze, false);
+                Agent agent = new Agent(game);
+                game.setAgent(agent);
+                if (mode == 1) agent.setPlanner(new PortfolioPlanner(maze, agent.moves(), stats));
+                game.start();
+                long t0 = System.nanoTime();
+                int n = 0;
+                while (game.isInGame() && !game.isGameWon() && n < MAX_TICKS) {
+                    game.tick();
+                    n++;
+                }
+                nanos[mode] += System.nanoTime() - t0;
+                ticks[mode] += n;
+                if (!game.isGameWon()) lost[mode]++;
+            }
+        }
+        System.out.printf("%dx%d ciclos %.2f: A* padrão %d ticks %.1f ms | portfólio %d ticks %.1f ms | sem vitória %d/%d%n",
+                side, side, loops, ticks[0], nanos[0] / 1e6, ticks[1], nanos[1] / 1e6, lost[0], lost[1]);
+    }
+}
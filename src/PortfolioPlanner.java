@@ -0,0 +1,383 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Portfólio de estratégias de busca: dispara todas ao mesmo tempo para uma consulta, fica
+ * com o primeiro resultado válido e cancela (interrompe) as demais. Sem núcleos para todas
+ * ao mesmo tempo, a corrida vira um teste em sequência na thread que chama, e vence a que
+ * respondeu em menos tempo (threads disputando um núcleo só medem o escalonador).
+ *
+ * As vitórias são contadas por perfil: classe de tamanho e de ciclos do labirinto, um ou
+ * vários alvos, classe de distância até o alvo mais próximo. Depois de {@link #LEARN_RACES}
+ * corridas num perfil a estratégia que mais venceu é chamada direto, na thread que chama,
+ * sem o custo das threads. Ainda há corridas de conferência: a primeira depois de
+ * {@link #RERACE_EVERY} consultas diretas, e o intervalo dobra (até {@link #MAX_RERACE_EVERY})
+ * a cada conferência que a líder vence; se outra vencer, volta ao início. Um perfil com
+ * vencedora clara quase não corre mais. As contagens ficam num arquivo Properties
+ * compartilhado ({@link Stats}), então o aprendizado vale para as próximas execuções.
+ *
+ * Cada estratégia tem uma trava mantida durante a busca (também na chamada direta): antes
+ * de devolver, a consulta espera as perdedoras saírem, para que nenhuma continue lendo o
+ * conhecimento do agente (ou usando os próprios vetores) enquanto o jogo segue.
+ *
+ * Medição: {@link PortfolioBenchmark}.
+ */
+public class PortfolioPlanner implements Planner {
+
+    public static final String DEFAULT_STATS_FILE = ".teseu/portfolio.properties";
+    public static final String PROPERTY = "teseu.portfolio";   // true = agente da janela começa com o portfólio
+    static final int LEARN_RACES = 16;         // Corridas por perfil antes de escolher direto
+    static final int RERACE_EVERY = 32;        // Consultas diretas até a primeira conferência
+    static final int MAX_RERACE_EVERY = 4096;  // Teto do intervalo entre conferências
+    private static final int SAVE_EVERY = 32;  // Corridas entre gravações do arquivo
+    private static final int REJECTED = -4;    // Corrida recusada: sem thread livre no pool
+
+    private static final String[] DISTANCE_CLASSES = {"d16", "d64", "d256", "dfar"};
+
+    // Threads das corridas (uma por estratégia em andamento; quem chama só espera), no máximo
+    // uma por núcleo; sem fila: com o pool cheio a corrida é recusada e a consulta vai direto
+    private static final int HELPER_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final ThreadPoolExecutor HELPERS = new ThreadPoolExecutor(0, HELPER_THREADS,
+            30, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+        Thread t = new Thread(r, "portfolio");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Planner[] planners;
+    private final ReentrantLock[] busy;
+    private final List<Callable<Integer>> tasks = new ArrayList<>();
+    private final int[] results;
+    private final Stats stats;
+    private final int cols;
+    private final String[] profiles;           // [um alvo / vários][classe de distância], achatado
+    private final int[] choice;                // Líder por perfil (-1 = ainda aprendendo)
+    private final int[] interval;              // Consultas diretas entre conferências, por perfil
+    private final int[] untilRace;             // Consultas diretas até a próxima corrida
+    private Planner last;
+
+    // Consulta em andamento (publicada às tarefas pela submissão ao executor)
+    private int queryStart, queryGoalCount;
+    private int[] queryGoals;
+
+    /** Portfólio com A*, BFS e A* bidirecional sobre os movimentos dados */
+    public PortfolioPlanner(Maze maze, ParallelAStar.Moves moves, Stats stats) {
+        this(maze, stats,
+                new GridPlanner.AStar(maze.rows, maze.cols, moves),
+                new GridPlanner.Bfs(maze.rows, maze.cols, moves),
+                new GridPlanner.Bidirectional(maze.rows, maze.cols, moves));
+    }
+
+    /**
+     * Portfólio com as estratégias dadas; a primeira atende as consultas enquanto um perfil
+     * não tem líder e a corrida é recusada (pool cheio), então deve servir a qualquer consulta.
+     */
+    public PortfolioPlanner(Maze maze, Stats stats, Planner... planners) {
+        this.planners = planners;
+        this.busy = new ReentrantLock[planners.length];
+        this.results = new int[planners.length];
+        this.stats = stats;
+        this.cols = maze.cols;
+        for (int i = 0; i < planners.length; i++) {
+            busy[i] = new ReentrantLock();
+            int index = i;
+            tasks.add(() -> runTask(index));
+        }
+        String mazeProfile = mazeProfile(maze);
+        int n = DISTANCE_CLASSES.length;
+        profiles = new String[2 * n];
+        for (int d = 0; d < n; d++) {
+            profiles[d] = mazeProfile + "-single-" + DISTANCE_CLASSES[d];
+            profiles[n + d] = mazeProfile + "-multi-" + DISTANCE_CLASSES[d];
+        }
+        choice = new int[profiles.length];
+        interval = new int[profiles.length];
+        untilRace = new int[profiles.length];
+        Arrays.fill(interval, RERACE_EVERY);
+        for (int p = 0; p < profiles.length; p++) {
+            choice[p] = stats.leader(profiles[p], planners);    // Aprendido em execuções anteriores
+            if (choice[p] >= 0) untilRace[p] = RERACE_EVERY;
+        }
+    }
+
+    @Override public String name() {
+        return "portfolio";
+    }
+
+    @Override public int search(int start, int[] goals, int goalCount) {
+        if (goalCount == 0) return NO_PATH;
+        int p = profile(start, goals, goalCount);
+        if (untilRace[p] > 0) {
+            untilRace[p]--;
+            int len = searchDirect(choice[p], start, goals, goalCount);
+            if (len != UNSUPPORTED) {
+                if (len != CANCELLED) last = planners[choice[p]];
+                return len;
+            }
+        }
+
+        int winner = HELPER_THREADS >= planners.length ? race(start, goals, goalCount)
+                : trial(start, goals, goalCount);
+        if (winner == REJECTED) {
+            int i = Math.max(choice[p], 0);
+            int len = searchDirect(i, start, goals, goalCount);
+            if (len != CANCELLED && len != UNSUPPORTED) last = planners[i];
+            return len == UNSUPPORTED ? NO_PATH : len;
+        }
+        if (winner < 0) return winner;
+        last = planners[winner];
+        if (stats.record(profiles[p], last.name()) % SAVE_EVERY == 0) stats.save();
+        adapt(p, winner);
+        return results[winner];
+    }
+
+    @Override public int[] path() {
+        return last.path();
+    }
+
+    /** Estratégia que respondeu a última consulta */
+    public Planner lastPlanner() {
+        return last;
+    }
+
+    /** Todas as estratégias em threads do pool; devolve a vencedora, NO_PATH, CANCELLED ou REJECTED */
+    private int race(int start, int[] goals, int goalCount) {
+        queryStart = start;
+        queryGoals = goals;
+        queryGoalCount = goalCount;
+        try {
+            return HELPERS.invokeAny(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CANCELLED;
+        } catch (ExecutionException e) {
+            return NO_PATH;               // Nenhuma estratégia atendeu a consulta
+        } catch (RejectedExecutionException e) {
+            return REJECTED;              // As já submetidas foram canceladas
+        } finally {
+            awaitLosers();
+        }
+    }
+
+    /** Todas as estratégias em sequência nesta thread; vence a que respondeu mais rápido */
+    private int trial(int start, int[] goals, int goalCount) {
+        int winner = NO_PATH;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < planners.length; i++) {
+            long t0 = System.nanoTime();
+            int len = searchDirect(i, start, goals, goalCount);
+            long elapsed = System.nanoTime() - t0;
+            if (len == CANCELLED) return CANCELLED;
+            if (len == UNSUPPORTED || elapsed >= best) continue;
+            results[i] = len;
+            winner = i;
+            best = elapsed;
+        }
+        return winner;
+    }
+
+    /** Depois de uma corrida: atualiza a líder do perfil e o intervalo até a próxima conferência */
+    private void adapt(int p, int winner) {
+        int leader = stats.leader(profiles[p], planners);
+        if (leader < 0) {
+            untilRace[p] = 0;             // Ainda aprendendo: continua correndo
+        } else {
+            boolean confirmed = leader == choice[p] && winner == leader;
+            interval[p] = confirmed ? Math.min(interval[p] * 2, MAX_RERACE_EVERY) : RERACE_EVERY;
+            untilRace[p] = interval[p];
+        }
+        choice[p] = leader;
+    }
+
+    /**
+     * Chama a estratégia na thread atual, com a mesma trava das corridas: a estratégia
+     * nunca roda em duas threads ao mesmo tempo (os vetores dela são reaproveitados)
+     */
+    private int searchDirect(int i, int start, int[] goals, int goalCount) {
+        try {
+            busy[i].lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CANCELLED;
+        }
+        try {
+            return planners[i].search(start, goals, goalCount);
+        } finally {
+            busy[i].unlock();
+        }
+    }
+
+    private Integer runTask(int i) throws InterruptedException {
+        busy[i].lockInterruptibly();   // Já cancelada: nem começa
+        try {
+            int len = planners[i].search(queryStart, queryGoals, queryGoalCount);
+            if (len == UNSUPPORTED || len == CANCELLED) throw new CancellationException(planners[i].name());
+            results[i] = len;
+            return i;
+        } finally {
+            busy[i].unlock();
+        }
+    }
+
+    /** As perdedoras já foram interrompidas; espera cada uma soltar a trava */
+    private void awaitLosers() {
+        for (ReentrantLock lock : busy) {
+            lock.lock();
+            lock.unlock();
+        }
+    }
+
+    /** Índice do perfil da consulta em {@link #profiles} */
+    private int profile(int start, int[] goals, int goalCount) {
+        int r = start / cols, c = start % cols;
+        int nearest = Integer.MAX_VALUE;
+        for (int i = 0; i < goalCount; i++) {
+            nearest = Math.min(nearest, GridPlanner.dist(r, c, goals[i] / cols, goals[i] % cols));
+        }
+        int d = nearest < 16 ? 0 : nearest < 64 ? 1 : nearest < 256 ? 2 : 3;
+        return goalCount == 1 ? d : DISTANCE_CLASSES.length + d;
+    }
+
+    /**
+     * Perfil do labirinto: log2 do número de células e proporção de ciclos (arestas a mais
+     * que uma árvore ligando as células abertas). Corredores sem ciclos favorecem buscas
+     * cegas; salas abertas favorecem buscas dirigidas ao alvo.
+     */
+    static String mazeProfile(Maze maze) {
+        int open = 0, edges = 0;
+        for (int r = 0; r < maze.rows; r++) {
+            for (int c = 0; c < maze.cols; c++) {
+                if (maze.isWall(r, c)) continue;
+                open++;
+                if (c + 1 < maze.cols && !maze.isWall(r, c + 1)) edges++;
+                if (r + 1 < maze.rows && !maze.isWall(r + 1, c)) edges++;
+            }
+        }
+        int cycles = edges - open + maze.analysis.componentCount;
+        double ratio = open == 0 ? 0 : (double) cycles / open;
+        int loops = ratio < 0.01 ? 0 : ratio < 0.05 ? 1 : ratio < 0.2 ? 2 : 3;
+        int size = 31 - Integer.numberOfLeadingZeros(Math.max(1, maze.rows * maze.cols));
+        return "c" + size + "-l" + loops;
+    }
+
+    /**
+     * Vitórias por perfil e estratégia, gravadas num arquivo Properties
+     * ({@code <perfil>.races} e {@code <perfil>.<estratégia>}). Uma instância por arquivo,
+     * compartilhada pelos portfólios do processo.
+     */
+    public static final class Stats {
+
+        private static final ConcurrentHashMap<String, Stats> OPEN_STATS = new ConcurrentHashMap<>();
+
+        private final File file;
+        private final HashMap<String, Integer> counts = new HashMap<>();
+        private int racesSinceSave;
+
+        private Stats(File file) {
+            this.file = file;
+        }
+
+        /** Estatísticas do arquivo (criado na primeira gravação) */
+        public static Stats open(String path) {
+            File file = new File(path);
+            return OPEN_STATS.computeIfAbsent(file.getAbsolutePath(), p -> load(file));
+        }
+
+        private static Stats load(File file) {
+            Stats stats = new Stats(file);
+            if (!file.exists()) return stats;
+            Properties props = new Properties();
+            try (InputStream in = new FileInputStream(file)) {
+                props.load(in);
+                for (String key : props.stringPropertyNames()) {
+                    stats.counts.put(key, Integer.parseInt(props.getProperty(key).trim()));
+                }
+            } catch (IOException | NumberFormatException e) {
+                System.out.println("Estatísticas do portfólio ignoradas: " + file + " (" + e.getMessage() + ")");
+                stats.counts.clear();
+            }
+            return stats;
+        }
+
+        /**
+         * Índice da estratégia com mais vitórias no perfil, ou -1 se o perfil ainda
+         * não tem corridas suficientes.
+         */
+        synchronized int leader(String profile, Planner[] planners) {
+            if (counts.getOrDefault(profile + ".races", 0) < LEARN_RACES) return -1;
+            int best = -1, bestWins = 0;
+            for (int i = 0; i < planners.length; i++) {
+                int wins = counts.getOrDefault(profile + "." + planners[i].name(), 0);
+                if (wins > bestWins) {
+                    best = i;
+                    bestWins = wins;
+                }
+            }
+            return best;
+        }
+
+        /** Registra uma vitória; devolve as corridas desde a última gravação */
+        synchronized int record(String profile, String planner) {
+            counts.merge(profile + ".races", 1, Integer::sum);
+            counts.merge(profile + "." + planner, 1, Integer::sum);
+            return ++racesSinceSave;
+        }
+
+        public synchronized int wins(String profile, String planner) {
+            return counts.getOrDefault(profile + "." + planner, 0);
+        }
+
+        /** Grava as contagens (falhas só são avisadas: o portfólio segue em memória) */
+        public synchronized void save() {
+            Properties props = new Properties();
+            for (java.util.Map.Entry<String, Integer> e : counts.entrySet()) {
+                props.setProperty(e.getKey(), e.getValue().toString());
+            }
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) parent.mkdirs();
+            File tmp = new File(file.getPath() + ".tmp");
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                props.store(out, "Vitórias do portfólio de buscas por perfil");
+            } catch (IOException e) {
+                System.out.println("Não foi possível gravar " + file + " (" + e.getMessage() + ")");
+                tmp.delete();
+                return;
+            }
+            // Troca atômica: outro processo nunca lê o arquivo pela metade
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                if (!tmp.renameTo(file)) tmp.delete();
+            }
+            racesSinceSave = 0;
+        }
+
+        /** Tabela perfil -> corridas e vitórias, em ordem de perfil */
+        @Override public synchronized String toString() {
+            TreeMap<String, Integer> sorted = new TreeMap<>(counts);
+            StringBuilder sb = new StringBuilder();
+            for (java.util.Map.Entry<String, Integer> e : sorted.entrySet()) {
+                sb.append(e.getKey()).append(" = ").append(e.getValue()).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Vetores reutilizáveis para buscas em grade (A*, BFS), um conjunto por thread.
+ *
+ * Em vez de limpar os vetores a cada busca usamos um número de geração: uma célula só
+ * é considerada visitada se {@code state[cell] >> 1 == generation}. O heap binário guarda
+ * índices de célula ordenados por {@code f} (empate: maior {@code g} primeiro) e suporta
+ * redução de chave via {@code heapPos}.
+ */
+final class SearchBuffers {
+
+    private static final ThreadLocal<SearchBuffers> LOCAL = ThreadLocal.withInitial(SearchBuffers::new);
+
+    int[] g = new int[0];          // Custo desde a origem
+    int[] f = new int[0];          // g + heurística
+    int[] state = new int[0];      // (geração << 1) | fechado
+    byte[] parentDir = new byte[0]; // Direção usada para chegar na célula
+    int[] heap = new int[0];
+    int[] heapPos = new int[0];
+    int heapSize;
+    private int generation;
+
+    /** Buffers da thread atual com capacidade para {@code cells} células */
+    static SearchBuffers get(int cells) {
+        SearchBuffers b = LOCAL.get();
+        b.ensure(cells);
+        return b;
+    }
+
+    void ensure(int cells) {
+        if (g.length >= cells) return;
+        g = new int[cells];
+        f = new int[cells];
+        state = new int[cells];
+        parentDir = new byte[cells];
+        heap = new int[cells];
+        heapPos = new int[cells];
+        generation = 0;
+    }
+
+    /** Inicia uma nova busca: invalida todas as células de uma vez */
+    void begin() {
+        heapSize = 0;
+        if (++generation >= (1 << 30)) { // Evita estouro: limpa e recomeça
+            java.util.Arrays.fill(state, 0);
+            generation = 1;
+        }
+    }
+
+    boolean seen(int cell) { return state[cell] >> 1 == generation; }
+
+    boolean closed(int cell) { return state[cell] == (generation << 1 | 1); }
+
+    void close(int cell) { state[cell] = generation << 1 | 1; }
+
+    /** Marca a célula como vista nesta busca (BFS, sem usar o heap) */
+    void mark(int cell) { state[cell] = generation << 1; }
+
+    /** Insere ou reduz a chave da célula (g e f já atualizados) */
+    void push(int cell) {
+        int i;
+        if (seen(cell) && heapPos[cell] >= 0) {
+            i = heapPos[cell];
+        } else {
+            state[cell] = generation << 1;
+            i = heapSize++;
+            heap[i] = cell;
+            heapPos[cell] = i;
+        }
+        siftUp(i);
+    }
+
+    int pop() {
+        int top = heap[0];
+        heapPos[top] = -1;
+        int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapPos[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    int peek() { return heap[0]; }
+
+    boolean isEmpty() { return heapSize == 0; }
+
+    private boolean less(int a, int b) {
+        return f[a] < f[b] || (f[a] == f[b] && g[a] > g[b]);
+    }
+
+    private void siftUp(int i) {
+        int cell = heap[i];
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            int pc = heap[p];
+            if (!less(cell, pc)) break;
+            heap[i] = pc;
+            heapPos[pc] = i;
+            i = p;
+        }
+        heap[i] = cell;
+        heapPos[cell] = i;
+    }
+
+    private void siftDown(int i) {
+        int cell = heap[i];
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < heapSize && less(heap[right], heap[child])) child = right;
+            if (!less(heap[child], cell)) break;
+            heap[i] = heap[child];
+            heapPos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = cell;
+        heapPos[cell] = i;
+    }
+}
@@ -0,0 +1,218 @@
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hospeda muitas partidas independentes (headless) em um pequeno pool de threads.
+ *
+ * As sessões são distribuídas em uma "roda" de slots: o período de tick é dividido em
+ * SLOTS fatias e cada slot é uma tarefa de taxa fixa que avança apenas as suas sessões.
+ * Assim a carga fica espalhada ao longo do período em vez de concentrada num único instante.
+ *
+ * Labirintos são carregados uma vez e compartilhados (Maze é imutável); cada sessão
+ * guarda só o estado da partida (Game, com bitset de comidas) e, opcionalmente, um agente.
+ */
+public class SessionHost implements AutoCloseable {
+
+    public static final long DEFAULT_TICK_MS = 80;       // Mesmo intervalo do Timer do Model
+
+    // Entrada pendente (escrita por qualquer thread, consumida no tick)
+    private static final int INPUT_SET     = 0x10;
+    private static final int INPUT_RESTART = 0x20;
+
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentLinkedQueue<Session>[] wheel;
+    private final ConcurrentHashMap<String, Maze> mazes = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder sessions = new LongAdder();
+    private volatile SpectatorServer spectators;          // Transmissão das sessões (opcional)
+
+    /** Uma partida hospedada: núcleo do jogo + agente opcional */
+    public static final class Session {
+        private static final AtomicIntegerFieldUpdater<Session> INPUT =
+                AtomicIntegerFieldUpdater.newUpdater(Session.class, "input");
+
+        public final long id;
+        public final Game game;             // Só a thread do slot pode ler/alterar
+        public final Agent agent;           // null = jogador manual
+        private final int slot;
+        private volatile int input;
+        private volatile boolean closed;
+        private volatile boolean inGame;    // Cópia publicada a cada tick (leitura de outras threads)
+        private SpectatorServer.Stream stream; // null = não transmitida
+
+        private Session(long id, Game game, Agent agent, int slot) {
+            this.id = id;
+            this.game = game;
+            this.agent = agent;
+            this.slot = slot;
+        }
+
+        /** Aplica a entrada pendente e avança um frame (chamado só pela thread do slot) */
+        private void tick() {
+            int in = INPUT.getAndSet(this, 0);
+            if ((in & INPUT_RESTART) != 0) game.start();
+            if ((in & INPUT_SET) != 0) game.requestDirection((in >> 2 & 3) - 1, (in & 3) - 1);
+            game.tick();
+            if (stream != null) stream.capture();
+            inGame = game.isInGame();
+        }
+
+        public boolean isClosed() { return closed; }
+
+        /** Se a partida estava em andamento no fim do último tick (seguro fora da thread do slot) */
+        public boolean isInGame() { return inGame; }
+    }
+
+    public SessionHost(int threads, int slots, long tickMillis) {
+        if (threads < 1 || slots < 1 || tickMillis < 1) throw new IllegalArgumentException("parâmetros inválidos");
+        this.scheduler = Executors.newScheduledThreadPool(threads, r -> {
+            Thread t = new Thread(r, "session-host");
+            t.setDaemon(true);
+            return t;
+        });
+        @SuppressWarnings("unchecked")
+        ConcurrentLinkedQueue<Session>[] w = (ConcurrentLinkedQueue<Session>[]) new ConcurrentLinkedQueue<?>[slots];
+        this.wheel = w;
+        long periodNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        for (int i = 0; i < slots; i++) {
+            ConcurrentLinkedQueue<Session> bucket = new ConcurrentLinkedQueue<>();
+            wheel[i] = bucket;
+            scheduler.scheduleAtFixedRate(() -> tickSlot(bucket), periodNanos * i / slots, periodNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Host com uma thread por núcleo e 16 slots por período */
+    public SessionHost() {
+        this(Runtime.getRuntime().availableProcessors(), 16, DEFAULT_TICK_MS);
+    }
+
+    private void tickSlot(ConcurrentLinkedQueue<Session> bucket) {
+        int ticked = 0;                      // Contado aqui: size() percorreria a fila de novo
+        for (Session s : bucket) {
+            try {
+                s.tick();
+                ticked++;
+            } catch (RuntimeException e) {
+                // Uma sessão com erro não pode interromper a tarefa periódica do slot
+                System.out.println("[HOST] Sessão " + s.id + " encerrada por erro: " + e);
+                close(s);
+            }
+        }
+        ticks.add(ticked);
+    }
+
+    /** Labirinto compartilhado para o arquivo dado (carregado e analisado uma única vez) */
+    public Maze maze(String filePath) {
+        Maze m = mazes.computeIfAbsent(filePath, Maze::load);
+        if (m == null) throw new IllegalArgumentException("Labirinto inválido: " + filePath);
+        return m;
+    }
+
+    public Session open(String mazeFile, boolean ai) {
+        return open(maze(mazeFile), ai);
+    }
+
+    /** Abre uma nova sessão já em jogo; com {@code ai} o agente controla o Pacman */
+    public Session open(Maze maze, boolean ai) {
+        Game game = new Game(maze, false);
+        Agent agent = null;
+        if (ai) {
+            agent = new Agent(game);
+            game.setAgent(agent);
+        } else {
+            game.setAiEnabled(false);
+        }
+        game.start();
+        long id = nextId.getAndIncrement();
+        Session s = new Session(id, game, agent, (int) (id % wheel.length));
+        s.inGame = true;
+        SpectatorServer server = spectators;
+        if (server != null) s.stream = server.publish((int) id, game);
+        wheel[s.slot].add(s);
+        sessions.increment();
+        return s;
+    }
+
+    /** Enfileira uma direção para a sessão (aplicada no próximo tick) */
+    public void submitInput(Session s, int dx, int dy) {
+        if (dx < -1 || dx > 1 || dy < -1 || dy > 1) throw new IllegalArgumentException("direção inválida");
+        int v = INPUT_SET | (dx + 1) << 2 | (dy + 1);
+        Session.INPUT.accumulateAndGet(s, v, (old, in) -> (old & INPUT_RESTART) | in);
+    }
+
+    /** Reinicia a partida da sessão no próximo tick */
+    public void restart(Session s) {
+        Session.INPUT.accumulateAndGet(s, INPUT_RESTART, (old, in) -> old | in);
+    }
+
+    public void close(Session s) {
+        if (s.closed) return;
+        s.closed = true;
+        if (wheel[s.slot].remove(s)) sessions.decrement();
+        SpectatorServer server = spectators;
+        if (server != null && s.stream != null) server.unpublish(s.stream);
+    }
+
+    /**
+     * Transmite as sessões abertas daqui em diante pelo servidor dado (id da partida =
+     * id da sessão). O tick só escreve no anel da sessão; a rede fica na thread do servidor.
+     */
+    public void attach(SpectatorServer server) {
+        this.spectators = server;
+    }
+
+    public int sessionCount() { return sessions.intValue(); }
+
+    /** Total de ticks de sessão executados desde a criação */
+    public long tickCount() { return ticks.sum(); }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Medição simples: java SessionHost [sessões] [segundos] [arquivo] [ai|manual]
+     * Reporta memória por sessão e ticks por segundo.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String file = args.length > 2 ? args[2] : "src/resources/maze.txt";
+        boolean ai = args.length <= 3 || args[3].equals("ai");
+
+        try (SessionHost host = new SessionHost()) {
+            Maze maze = host.maze(file);
+            Runtime rt = Runtime.getRuntime();
+            System.gc();
+            long before = rt.totalMemory() - rt.freeMemory();
+            Session[] all = new Session[count];
+            for (int i = 0; i < count; i++) all[i] = host.open(maze, ai);
+            System.gc();
+            long after = rt.totalMemory() - rt.freeMemory();
+            System.out.printf("%d sessões (%s): ~%.1f KB por sessão%n", count, ai ? "ai" : "manual",
+                    (after - before) / 1024.0 / count);
+
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            long start = System.nanoTime();
+            long startTicks = host.tickCount();
+            long end = start + TimeUnit.SECONDS.toNanos(seconds);
+            while (System.nanoTime() < end) {
+                if (!ai) { // Jogadores manuais: entradas aleatórias
+                    for (int i = 0; i < 100; i++) {
+                        int d = rnd.nextInt(4);
+                        host.submitInput(all[rnd.nextInt(count)], d == 0 ? -1 : d == 1 ? 1 : 0, d == 2 ? -1 : d == 3 ? 1 : 0);
+                    }
+                }
+                for (Session s : all) if (!s.isInGame()) host.restart(s);
+                Thread.sleep(DEFAULT_TICK_MS);
+            }
+            double secs = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%.0f ticks de sessão/s (esperado %.0f)%n",
+                    (host.tickCount() - startTicks) / secs, count * 1000.0 / DEFAULT_TICK_MS);
+        }
+    }
+}
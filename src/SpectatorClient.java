@@ -0,0 +1,219 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Espectador de uma partida transmitida pelo {@link SpectatorServer}: recebe o cabeçalho
+ * (levelData comprimido) e aplica quadros-chave e deltas, mantendo uma cópia do estado
+ * (posição, pontuação, vidas, estado e bitset de comidas).
+ *
+ *   java -cp out SpectatorClient [porta] [id] [segundos]
+ *
+ * Uma conexão acompanha um único labirinto; se o servidor trocar a partida do id, a
+ * conexão é encerrada e o main reconecta.
+ */
+public class SpectatorClient implements AutoCloseable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private long bytesRead;
+
+    public final int id, rows, cols;
+    public final short[] levelData;
+    private final int[] foodCells;            // Número da comida -> célula (mesma ordem de Maze)
+
+    // Estado espelhado
+    private long[] food = new long[0];
+    private int tick, x, y, score, lives, state;
+    private boolean synced;                   // Já recebeu um quadro-chave
+
+    public SpectatorClient(int port, int id) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        InputStream raw = socket.getInputStream();
+        this.in = new DataInputStream(new BufferedInputStream(new InputStream() {
+            @Override public int read() throws IOException {
+                int b = raw.read();
+                if (b >= 0) bytesRead++;
+                return b;
+            }
+            @Override public int read(byte[] b, int off, int len) throws IOException {
+                int n = raw.read(b, off, len);
+                if (n > 0) bytesRead += n;
+                return n;
+            }
+        }));
+        OutputStream out = socket.getOutputStream();
+        out.write(new byte[]{(byte) (id >>> 24), (byte) (id >>> 16), (byte) (id >>> 8), (byte) id});
+        out.flush();
+
+        try {
+            if (in.readInt() != SpectatorServer.MAGIC || in.readInt() != SpectatorServer.VERSION) {
+                throw new IOException("Fluxo de espectador inválido");
+            }
+            this.id = in.readInt();
+            this.rows = in.readInt();
+            this.cols = in.readInt();
+            byte[] packed = new byte[in.readInt()];
+            in.readFully(packed);
+            this.levelData = inflate(packed, rows * cols);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        int foods = 0;
+        for (short cell : levelData) if ((cell & MazeAnalysis.FOOD_BIT) != 0) foods++;
+        foodCells = new int[foods];
+        for (int i = 0, n = 0; i < levelData.length; i++) {
+            if ((levelData[i] & MazeAnalysis.FOOD_BIT) != 0) foodCells[n++] = i;
+        }
+    }
+
+    private static short[] inflate(byte[] packed, int cells) throws IOException {
+        byte[] raw = new byte[cells * 2];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(packed);
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) n += inflater.inflate(raw, n, raw.length - n);
+            if (n != raw.length) throw new IOException("levelData incompleto");
+        } catch (DataFormatException e) {
+            throw new IOException("levelData corrompido", e);
+        } finally {
+            inflater.end();
+        }
+        short[] level = new short[cells];
+        for (int i = 0; i < cells; i++) level[i] = (short) ((raw[2 * i] & 0xFF) << 8 | raw[2 * i + 1] & 0xFF);
+        return level;
+    }
+
+    /** Lê e aplica a próxima mensagem (bloqueia até chegar); EOFException no fim da transmissão */
+    public void next() throws IOException {
+        int type = in.readUnsignedByte();
+        if (type == SpectatorServer.KEYFRAME) {
+            tick = varint();
+            x = varint();
+            y = varint();
+            score = unzigzag(varint());
+            lives = in.readUnsignedByte();
+            state = in.readUnsignedByte();
+            int words = varint();
+            if (food.length != words) food = new long[words];
+            for (int i = 0; i < words; i++) food[i] = in.readLong();
+            synced = true;
+            return;
+        }
+        if (!synced) throw new IOException("Delta antes do primeiro quadro-chave");
+        tick++;
+        if ((type & SpectatorServer.MOVE) != 0) {
+            x += in.readByte();
+            y += in.readByte();
+        }
+        if ((type & SpectatorServer.JUMP) != 0) {
+            x = varint();
+            y = varint();
+        }
+        if ((type & SpectatorServer.SCORE) != 0) score += unzigzag(varint());
+        if ((type & SpectatorServer.LIVES) != 0) lives = in.readUnsignedByte();
+        if ((type & SpectatorServer.STATE) != 0) state = in.readUnsignedByte();
+        if ((type & SpectatorServer.FOOD) != 0) {
+            int f = varint();
+            food[f >>> 6] &= ~(1L << f);
+        }
+    }
+
+    private int varint() throws IOException {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+
+    private static int unzigzag(int v) {
+        return v >>> 1 ^ -(v & 1);
+    }
+
+    public int tick() { return tick; }
+    public int pacmanX() { return x; }
+    public int pacmanY() { return y; }
+    public int score() { return score; }
+    public int lives() { return lives; }
+    public boolean isInGame() { return (state & SpectatorServer.IN_GAME) != 0; }
+    public boolean isGameWon() { return (state & SpectatorServer.WON) != 0; }
+    public boolean isExitUnlocked() { return (state & SpectatorServer.EXIT_UNLOCKED) != 0; }
+    public long bytesRead() { return bytesRead; }
+
+    /** Se a célula (índice linear) ainda tem comida */
+    public boolean hasFood(int cell) {
+        int f = java.util.Arrays.binarySearch(foodCells, cell);
+        return f >= 0 && (food[f >>> 6] & 1L << f) != 0;
+    }
+
+    public int foodsLeft() {
+        int n = 0;
+        for (long w : food) n += Long.bitCount(w);
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        int id = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        boolean reconnecting = false;
+        // O servidor encerra a conexão quando o id passa a ser outra partida (ex.: troca de
+        // nível no Model): reconecta e recebe o cabeçalho do novo labirinto
+        while (System.nanoTime() < end) {
+            SpectatorClient client;
+            try {
+                client = new SpectatorClient(port, id);
+            } catch (EOFException e) {
+                System.out.println(reconnecting ? "Transmissão encerrada"
+                        : "Servidor recusou a partida " + id + " (inexistente ou encerrada)");
+                return;
+            }
+            try (SpectatorClient c = client) {
+                System.out.printf("Partida %d: %dx%d, cabeçalho %d bytes%n", c.id, c.rows, c.cols, c.bytesRead());
+                if (!watch(c, end)) return;
+            }
+            reconnecting = true;
+        }
+    }
+
+    /** Mostra o estado uma vez por segundo; devolve true se o servidor encerrou o fluxo antes do fim */
+    private static boolean watch(SpectatorClient c, long end) throws IOException {
+        long nextPrint = 0, lastBytes = c.bytesRead();
+        int lastTick = 0;
+        while (System.nanoTime() < end) {
+            try {
+                c.next();
+            } catch (EOFException e) {
+                return true;
+            }
+            if (System.nanoTime() >= nextPrint && c.tick() > lastTick) {
+                System.out.printf("tick %d | Pacman (%d,%d) | score %d | vidas %d | comidas %d%s | %.1f bytes/tick%n",
+                        c.tick(), c.pacmanY() / Game.BLOCK_SIZE, c.pacmanX() / Game.BLOCK_SIZE, c.score(), c.lives(),
+                        c.foodsLeft(), c.isGameWon() ? " | venceu" : c.isInGame() ? "" : " | fora de jogo",
+                        (double) (c.bytesRead() - lastBytes) / (c.tick() - lastTick));
+                lastBytes = c.bytesRead();
+                lastTick = c.tick();
+                nextPrint = System.nanoTime() + 1_000_000_000L;
+            }
+        }
+        return false;
+    }
+}
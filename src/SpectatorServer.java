@@ -0,0 +1,580 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Transmissão de partidas para espectadores por TCP local (loopback), com NIO.
+ *
+ * Cada partida publicada é um {@link Stream}. A thread do jogo chama {@link Stream#capture()}
+ * depois de cada tick, e o estado vira uma mensagem de poucos bytes escrita num anel
+ * (vetor circular) da partida, sem travas nem chamadas de sistema:
+ * - delta: um byte de campos alterados + deslocamento do Pacman (2 bytes), variação da
+ *   pontuação, vidas, estado (em jogo / venceu / saída liberada) e comida comida, só os
+ *   que mudaram; um tick sem mudanças custa 1 byte
+ * - quadro-chave: estado completo (posição, pontuação, vidas, estado, bitset de comidas),
+ *   a cada {@link #KEYFRAME_EVERY} ticks, ao reiniciar e quando alguém começa a assistir
+ *
+ * O anel é escrito uma vez por tick independentemente do número de espectadores; cada
+ * espectador só guarda o próprio cursor. A escrita segue o protocolo de seqlock: primeiro
+ * anuncia até onde vai sobrescrever ({@code reserve}), depois copia os bytes e por fim
+ * publica o novo fim ({@code head}). A thread da rede copia do anel e confere
+ * {@code reserve} depois; se a região foi sobrescrita durante a cópia, descarta.
+ *
+ * Espectador lento nunca segura o tick: se ficar mais de um anel para trás ele pula para o
+ * último quadro-chave (perde os ticks intermediários); se o socket não esvaziar por
+ * {@link #DROP_AFTER_NANOS} a conexão é fechada.
+ *
+ * Protocolo: o cliente envia o id da partida (int); o servidor responde com o cabeçalho
+ * (magic, versão, id, linhas, colunas, tamanho e levelData comprimido com Deflater) e
+ * depois o fluxo de mensagens a partir de um quadro-chave. Ver {@link SpectatorClient}.
+ *
+ * O cabeçalho vale para a conexão inteira: publicar outra partida com o mesmo id (ex.: o
+ * Model ao trocar de nível) encerra o Stream anterior, e os espectadores recebem o que
+ * faltava e são desconectados. Para seguir assistindo, o cliente reconecta com o mesmo id e
+ * recebe o cabeçalho do novo labirinto ({@link SpectatorClient#main} faz isso).
+ */
+public class SpectatorServer implements AutoCloseable {
+
+    public static final int MAGIC = 0x54535043;          // "TSPC"
+    public static final int VERSION = 1;
+    public static final String PORT_PROPERTY = "teseu.spectator.port";
+
+    // Mensagens: quadro-chave ou delta (bits dos campos presentes, nesta ordem)
+    public static final int KEYFRAME = 0x80;
+    public static final int MOVE  = 0x01;   // dx, dy em pixels (byte com sinal cada)
+    public static final int JUMP  = 0x02;   // x, y absolutos (varint), ex.: volta para E
+    public static final int SCORE = 0x04;   // variação da pontuação (varint zigzag)
+    public static final int LIVES = 0x08;   // vidas (byte)
+    public static final int STATE = 0x10;   // estado (byte)
+    public static final int FOOD  = 0x20;   // número da comida comida (varint)
+
+    // Bits do estado
+    public static final int IN_GAME = 1, WON = 2, EXIT_UNLOCKED = 4;
+
+    static final int KEYFRAME_EVERY = 256;                 // Ticks entre quadros-chave
+    private static final int MIN_RING = 1 << 16;           // Bytes do anel (mínimo)
+    private static final int RINGS_PER_KEYFRAME = 16;      // Anel comporta pelo menos 16 quadros-chave
+    static final long DROP_AFTER_NANOS = 5_000_000_000L;   // Socket cheio por mais que isso: desconecta
+    private static final long POLL_MILLIS = 20;            // Intervalo de varredura dos anéis
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Thread thread;
+    private final ConcurrentHashMap<Integer, Stream> streams = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PackedLevel> packedLevels = new ConcurrentHashMap<>(); // Por conteúdo do labirinto
+    private final ArrayList<Viewer> viewers = new ArrayList<>();   // Só a thread da rede
+    private final AtomicInteger viewerCount = new AtomicInteger();
+    private final AtomicInteger resyncs = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /**
+     * Partida publicada. {@link #capture()} é chamado só pela thread que avança o jogo; os
+     * campos voláteis são lidos pela thread da rede.
+     */
+    public static final class Stream {
+        public final int id;
+        private final Game game;
+        private final int cols;
+        private final PackedLevel level;           // levelData comprimido (entrada em packedLevels)
+        private byte[] header;                     // Cabeçalho do protocolo (só a thread da rede)
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final int ringSize;
+
+        // Anel (criado quando alguém assiste pela primeira vez)
+        private volatile byte[] ring;
+        private volatile long head;                // Bytes já publicados
+        private volatile long reserve;             // Até onde a escrita em andamento vai
+        private volatile long lastKeyframe = -1;   // Posição do último quadro-chave
+        private volatile boolean closed;
+        private final AtomicInteger joins = new AtomicInteger();   // Espectadores que entraram
+
+        // Estado já transmitido (thread do jogo)
+        private int seenJoins;
+        private int tick, sinceKeyframe;
+        private int lastX, lastY, lastScore, lastLives, lastState, lastFoods;
+        private boolean fresh = true;              // Próxima mensagem precisa ser quadro-chave
+        private byte[] scratch = new byte[64];
+        private int len;
+
+        private Stream(int id, Game game, PackedLevel level) {
+            this.id = id;
+            this.game = game;
+            this.cols = game.getCols();
+            this.level = level;
+            int keyframeBytes = 32 + 8 * game.foodWords();
+            this.ringSize = Integer.highestOneBit(Math.max(MIN_RING, keyframeBytes * RINGS_PER_KEYFRAME) * 2 - 1);
+        }
+
+        /** Registra o estado da partida depois de um tick (não bloqueia nem aloca) */
+        public void capture() {
+            byte[] r = ring;
+            int x = game.getPacmanX(), y = game.getPacmanY();
+            int score = game.getScore(), lives = game.getLives(), foods = game.getFoodsLeft();
+            int state = (game.isInGame() ? IN_GAME : 0) | (game.isGameWon() ? WON : 0)
+                    | (game.isExitUnlocked() ? EXIT_UNLOCKED : 0);
+            tick++;
+            int joined = joins.get();
+            if (r == null || closed) {
+                fresh = true;                      // Ninguém assistindo ainda
+            } else {
+                boolean key = fresh || joined != seenJoins || ++sinceKeyframe >= KEYFRAME_EVERY
+                        || foods > lastFoods || lives > lastLives;
+                int eaten = -1;
+                if (!key && foods < lastFoods) {
+                    // A comida só some na célula onde o tick começou (alinhado)
+                    int cell = lastY / Game.BLOCK_SIZE * cols + lastX / Game.BLOCK_SIZE;
+                    eaten = lastFoods - foods == 1 && !game.hasFood(cell) ? game.getMaze().foodIndex[cell] : -1;
+                    key = eaten < 0;
+                }
+                if (key) keyframe(r, x, y, score, lives, state);
+                else delta(r, x, y, score, lives, state, eaten);
+            }
+            seenJoins = joined;
+            lastX = x;
+            lastY = y;
+            lastScore = score;
+            lastLives = lives;
+            lastState = state;
+            lastFoods = foods;
+        }
+
+        private void keyframe(byte[] r, int x, int y, int score, int lives, int state) {
+            int words = game.foodWords();
+            if (scratch.length < 32 + 8 * words) scratch = new byte[32 + 8 * words];
+            len = 0;
+            put(KEYFRAME);
+            varint(tick);
+            varint(x);
+            varint(y);
+            varint(zigzag(score));
+            put(lives);
+            put(state);
+            varint(words);
+            for (int i = 0; i < words; i++) {
+                long w = game.foodWord(i);
+                for (int s = 56; s >= 0; s -= 8) put((int) (w >>> s));
+            }
+            append(r, true);
+            fresh = false;
+            sinceKeyframe = 0;
+        }
+
+        private void delta(byte[] r, int x, int y, int score, int lives, int state, int eaten) {
+            len = 1;
+            int flags = 0, dx = x - lastX, dy = y - lastY;
+            if (dx != 0 || dy != 0) {
+                if (dx >= -128 && dx <= 127 && dy >= -128 && dy <= 127) {
+                    flags |= MOVE;
+                    put(dx);
+                    put(dy);
+                } else {
+                    flags |= JUMP;
+                    varint(x);
+                    varint(y);
+                }
+            }
+            if (score != lastScore) {
+                flags |= SCORE;
+                varint(zigzag(score - lastScore));
+            }
+            if (lives != lastLives) {
+                flags |= LIVES;
+                put(lives);
+            }
+            if (state != lastState) {
+                flags |= STATE;
+                put(state);
+            }
+            if (eaten >= 0) {
+                flags |= FOOD;
+                varint(eaten);
+            }
+            scratch[0] = (byte) flags;
+            append(r, false);
+        }
+
+        /** Copia a mensagem montada para o anel (um só escritor: a thread do jogo) */
+        private void append(byte[] r, boolean keyframe) {
+            long h = head;
+            reserve = h + len;
+            VarHandle.storeStoreFence();           // Anuncia antes de sobrescrever
+            int mask = r.length - 1;
+            int at = (int) (h & mask);
+            int first = Math.min(len, r.length - at);
+            System.arraycopy(scratch, 0, r, at, first);
+            System.arraycopy(scratch, first, r, 0, len - first);
+            head = h + len;
+            if (keyframe) lastKeyframe = h;
+        }
+
+        private void put(int b) {
+            scratch[len++] = (byte) b;
+        }
+
+        private void varint(int v) {
+            while ((v & ~0x7F) != 0) {
+                put(v & 0x7F | 0x80);
+                v >>>= 7;
+            }
+            put(v);
+        }
+
+        private static int zigzag(int v) {
+            return v << 1 ^ v >> 31;
+        }
+
+        /** Cabeçalho montado no primeiro espectador (a compressão não pesa na publicação) */
+        private byte[] header() {
+            if (header == null) header = header(id, game.getMaze(), level.data());
+            return header;
+        }
+
+        private static byte[] header(int id, Maze maze, byte[] packed) {
+            ByteBuffer b = ByteBuffer.allocate(24 + packed.length);
+            b.putInt(MAGIC).putInt(VERSION).putInt(id).putInt(maze.rows).putInt(maze.cols).putInt(packed.length);
+            b.put(packed);
+            return b.array();
+        }
+    }
+
+    /**
+     * levelData comprimido, compartilhado pelos Streams do mesmo labirinto (mesmo conteúdo,
+     * ainda que em outra instância de Maze); sai do mapa junto com o último deles.
+     * A compressão só acontece quando alguém assiste, na thread da rede.
+     */
+    private static final class PackedLevel {
+        final String key;              // Hash do conteúdo do labirinto
+        final Maze maze;
+        int streams;                   // Alterado só dentro de compute no mapa
+        private byte[] data;
+
+        PackedLevel(String key, Maze maze) {
+            this.key = key;
+            this.maze = maze;
+        }
+
+        synchronized byte[] data() {
+            if (data == null) data = deflate(maze);
+            return data;
+        }
+    }
+
+    /** levelData em bytes (big-endian) comprimido com Deflater */
+    private static byte[] deflate(Maze maze) {
+        byte[] raw = new byte[maze.levelData.length * 2];
+        for (int i = 0; i < maze.levelData.length; i++) {
+            raw[2 * i] = (byte) (maze.levelData[i] >> 8);
+            raw[2 * i + 1] = (byte) maze.levelData[i];
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream packed = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) packed.write(chunk, 0, deflater.deflate(chunk));
+        deflater.end();
+        return packed.toByteArray();
+    }
+
+    /** Conexão de um espectador (usada só pela thread da rede) */
+    private static final class Viewer {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer hello = ByteBuffer.allocate(4);
+        Stream stream;
+        ByteBuffer pending;            // Bytes ainda não aceitos pelo socket
+        ByteBuffer out;                // Cópia do anel
+        long cursor = -1;              // Próximo byte do anel a enviar (-1 = esperando quadro-chave)
+        long joinedAt;                 // Posição do anel quando entrou
+        long stalledSince;             // Desde quando o socket não esvazia (0 = fluindo)
+
+        Viewer(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    private SpectatorServer(ServerSocketChannel server, Selector selector) {
+        this.server = server;
+        this.selector = selector;
+        this.thread = new Thread(this::loop, "spectator");
+        thread.setDaemon(true);
+    }
+
+    /** Abre o servidor na porta local dada (0 = porta livre qualquer) */
+    public static SpectatorServer start(int port) throws IOException {
+        Selector selector = Selector.open();
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+        SpectatorServer s = new SpectatorServer(server, selector);
+        s.thread.start();
+        return s;
+    }
+
+    /**
+     * Servidor na porta da propriedade de sistema {@link #PORT_PROPERTY}, ou null se ela
+     * não estiver definida ou a porta não puder ser usada.
+     */
+    public static SpectatorServer fromSystemProperty() {
+        String port = System.getProperty(PORT_PROPERTY);
+        if (port == null) return null;
+        try {
+            SpectatorServer s = start(Integer.parseInt(port.trim()));
+            System.out.println("[SPECTATOR] Transmitindo em 127.0.0.1:" + s.port());
+            return s;
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("[SPECTATOR] Transmissão desligada: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Publica a partida com o id dado; o chamador passa a chamar capture() a cada tick.
+     * Se o id já estava publicado, o Stream anterior é encerrado (ver o protocolo acima).
+     */
+    public Stream publish(int id, Game game) {
+        Maze maze = game.getMaze();
+        String key = maze.analysis.hashHex();
+        PackedLevel packed = packedLevels.compute(key, (k, p) -> {
+            if (p == null) p = new PackedLevel(k, maze);
+            p.streams++;
+            return p;
+        });
+        Stream s = new Stream(id, game, packed);
+        Stream old = streams.put(id, s);
+        if (old != null) release(old);
+        return s;
+    }
+
+    /** Encerra a transmissão (os espectadores recebem o que falta e são desconectados) */
+    public void unpublish(Stream s) {
+        streams.remove(s.id, s);
+        release(s);
+    }
+
+    /** Fecha o Stream e solta o levelData comprimido dele (uma única vez por Stream) */
+    private void release(Stream s) {
+        s.closed = true;
+        if (!s.released.compareAndSet(false, true)) return;
+        packedLevels.computeIfPresent(s.level.key, (k, p) -> --p.streams == 0 ? null : p);
+    }
+
+    /** Labirintos distintos com o levelData comprimido em memória */
+    public int packedLevelCount() { return packedLevels.size(); }
+
+    public int viewerCount() { return viewerCount.get(); }
+
+    /** Vezes em que um espectador atrasado pulou para o último quadro-chave */
+    public int resyncCount() { return resyncs.get(); }
+
+    /** Espectadores desconectados por não consumirem o fluxo */
+    public int droppedCount() { return dropped.get(); }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===================== THREAD DA REDE =====================
+
+    private void loop() {
+        try {
+            while (running) {
+                selector.select(POLL_MILLIS);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) accept();
+                    else if (key.isReadable()) read((Viewer) key.attachment());
+                }
+                long now = System.nanoTime();
+                for (int i = viewers.size() - 1; i >= 0; i--) {
+                    Viewer v = viewers.get(i);
+                    if (v.stream != null && !pump(v, now)) disconnect(v, i);
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) System.out.println("[SPECTATOR] Servidor encerrado: " + e.getMessage());
+        } finally {
+            for (int i = viewers.size() - 1; i >= 0; i--) disconnect(viewers.get(i), i);
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException ignored) {
+                // Encerrando de qualquer forma
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch = server.accept();
+        if (ch == null) return;
+        ch.configureBlocking(false);
+        ch.socket().setTcpNoDelay(true);
+        SelectionKey key = ch.register(selector, SelectionKey.OP_READ);
+        Viewer v = new Viewer(ch, key);
+        key.attach(v);
+        viewers.add(v);
+        viewerCount.incrementAndGet();
+    }
+
+    /** Lê o id pedido; depois disso só detecta o fechamento pelo cliente */
+    private void read(Viewer v) {
+        try {
+            if (v.stream == null) {
+                if (v.channel.read(v.hello) < 0) throw new IOException("fechado");
+                if (v.hello.hasRemaining()) return;
+                Stream s = streams.get(v.hello.getInt(0));
+                if (s == null) throw new IOException("partida inexistente");
+                attach(v, s);
+            } else {
+                ByteBuffer sink = v.hello;
+                sink.clear();
+                if (v.channel.read(sink) < 0) throw new IOException("fechado");
+            }
+        } catch (IOException e) {
+            disconnect(v, viewers.indexOf(v));
+        }
+    }
+
+    private void attach(Viewer v, Stream s) {
+        if (s.ring == null) {
+            synchronized (s) {
+                if (s.ring == null) s.ring = new byte[s.ringSize];
+            }
+        }
+        v.stream = s;
+        v.out = ByteBuffer.allocate(s.ringSize);
+        v.out.flip();
+        v.pending = ByteBuffer.wrap(s.header());
+        v.joinedAt = s.head;
+        s.joins.incrementAndGet();         // O próximo capture() escreve um quadro-chave
+    }
+
+    /** Envia o que houver; devolve false se o espectador deve ser desconectado */
+    private boolean pump(Viewer v, long now) {
+        try {
+            if (v.pending.hasRemaining()) {
+                v.channel.write(v.pending);
+                if (v.pending.hasRemaining()) return stalled(v, now);
+            }
+            v.stalledSince = 0;
+            Stream s = v.stream;
+            if (v.cursor < 0) {
+                long kf = s.lastKeyframe;
+                if (kf < v.joinedAt) return !s.closed;   // Espera o quadro-chave da entrada
+                v.cursor = kf;
+            }
+            long h = s.head;
+            if (h == v.cursor) return !s.closed;
+            byte[] r = s.ring;
+            if (h - v.cursor > r.length || !copy(v, r, h)) {
+                // Atrasado demais (ou sobrescrito durante a cópia): pula para o último quadro-chave
+                v.cursor = s.lastKeyframe;
+                resyncs.incrementAndGet();
+                return true;
+            }
+            v.cursor = h;
+            v.pending = v.out;
+            v.channel.write(v.pending);
+            return !v.pending.hasRemaining() || stalled(v, now);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Copia [cursor, h) do anel e confere que nada foi sobrescrito durante a cópia */
+    private static boolean copy(Viewer v, byte[] r, long h) {
+        int n = (int) (h - v.cursor);
+        int mask = r.length - 1;
+        int at = (int) (v.cursor & mask);
+        int first = Math.min(n, r.length - at);
+        byte[] dst = v.out.array();
+        System.arraycopy(r, at, dst, 0, first);
+        System.arraycopy(r, 0, dst, first, n - first);
+        VarHandle.loadLoadFence();                // Lê os dados antes de conferir a reserva
+        if (v.stream.reserve - r.length > v.cursor) return false;
+        v.out.clear().limit(n);
+        return true;
+    }
+
+    private boolean stalled(Viewer v, long now) {
+        if (v.stalledSince == 0) v.stalledSince = now;
+        if (now - v.stalledSince < DROP_AFTER_NANOS) return true;
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    private void disconnect(Viewer v, int index) {
+        if (index >= 0) {
+            viewers.remove(index);
+            viewerCount.decrementAndGet();
+        }
+        v.key.cancel();
+        try {
+            v.channel.close();
+        } catch (IOException ignored) {
+            // Já desconectado
+        }
+    }
+
+    /**
+     * Demonstração: hospeda partidas com agente (SessionHost) e transmite todas.
+     *   java -cp out SpectatorServer [partidas] [porta] [segundos]
+     * Assista com: java -cp out SpectatorClient porta id
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        try (SpectatorServer server = start(port); SessionHost host = new SessionHost()) {
+            host.attach(server);
+            Maze maze = host.maze("src/resources/maze.txt");
+            SessionHost.Session[] all = new SessionHost.Session[count];
+            for (int i = 0; i < count; i++) all[i] = host.open(maze, true);
+            System.out.println("Transmitindo " + count + " partidas (ids 0.." + (count - 1) + ") em 127.0.0.1:" + server.port());
+            long end = System.nanoTime() + seconds * 1_000_000_000L;
+            while (System.nanoTime() < end) {
+                for (SessionHost.Session s : all) if (!s.isInGame()) host.restart(s);
+                Thread.sleep(1000);
+                System.out.printf("espectadores %d | pulos para quadro-chave %d | desconectados %d%n",
+                        server.viewerCount(), server.resyncCount(), server.droppedCount());
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * Lote de N ambientes (GameEnv) que avançam numa única chamada.
+ *
+ * Todas as observações ficam num único buffer, uma após a outra, e as ações podem ser
+ * lidas do próprio buffer. Com um arquivo, o buffer é mapeado em memória e pode ser
+ * compartilhado com um processo de treino local. Layout (little-endian):
+ *
+ * <pre>
+ *  0  int   MAGIC
+ *  4  int   número de ambientes (N)
+ *  8  int   tamanho de cada observação (stride)
+ * 12  int   início das observações
+ * 16  long  lote de observações publicado (0 = nenhum; escrito pelo ambiente)
+ * 24  long  lote respondido pelas ações (escrito pelo processo de treino)
+ * 32  byte[N] ações (lidas por stepFromBuffer)
+ * obsOffset + i*stride: observação do ambiente i (ver GameEnv)
+ * </pre>
+ *
+ * Protocolo com o processo de treino (contadores com escrita release / leitura acquire,
+ * então quem vê o contador novo vê também tudo o que foi escrito antes dele):
+ * <ol>
+ * <li>o ambiente escreve as N observações e depois o lote k em 16 ({@link #resetAll()} publica o 1)</li>
+ * <li>o treino espera 16 == k, lê as observações, escreve as N ações e depois k em 24</li>
+ * <li>{@link #stepFromBuffer()} espera 24 == k, lê as ações, avança e publica o lote k + 1</li>
+ * </ol>
+ * Cada lado só escreve na sua parte enquanto o outro espera, então nenhum lê um lote pela metade.
+ *
+ * Ambientes que terminam são reiniciados automaticamente no step seguinte;
+ * a observação final (com FLAG_DONE) fica visível por um step.
+ */
+public class VectorEnv {
+
+    public static final int MAGIC = 0x54534556;       // "TSEV"
+    public static final int OFF_COUNT = 4;
+    public static final int OFF_STRIDE = 8;
+    public static final int OFF_OBS = 12;
+    public static final int OFF_STEPS = 16;
+    public static final int OFF_ACTION_SEQ = 24;
+    public static final int OFF_ACTIONS = 32;
+
+    private static final int PARALLEL_MIN = 4096;     // A partir daqui o lote usa vários núcleos
+    private static final int SPINS = 1 << 10;         // Espera ativa antes de dormir
+    private static final long PARK_NANOS = 50_000;
+
+    // Acesso ordenado aos contadores (alinhados em 8 bytes no buffer)
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final GameEnv[] envs;
+    private final ByteBuffer buffer;
+    private final int stride, obsOffset;
+    private long steps;
+
+    /** Lote com buffer direto em memória */
+    public VectorEnv(Maze maze, int count) {
+        this(maze, count, ByteBuffer.allocateDirect(bufferSize(maze, count)));
+    }
+
+    /** Lote com buffer mapeado no arquivo dado (criado/redimensionado se necessário) */
+    public VectorEnv(Maze maze, int count, Path file) throws IOException {
+        this(maze, count, map(file, bufferSize(maze, count)));
+    }
+
+    private VectorEnv(Maze maze, int count, ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.stride = GameEnv.observationSize(maze);
+        this.obsOffset = align8(OFF_ACTIONS + count);
+        this.envs = new GameEnv[count];
+        for (int i = 0; i < count; i++) {
+            envs[i] = new GameEnv(maze, this.buffer, obsOffset + i * stride);
+        }
+        this.buffer.putInt(OFF_COUNT, count);
+        this.buffer.putInt(OFF_STRIDE, stride);
+        this.buffer.putInt(OFF_OBS, obsOffset);
+        this.buffer.putLong(OFF_STEPS, 0);
+        this.buffer.putLong(OFF_ACTION_SEQ, 0);
+        INTS.setRelease(this.buffer, 0, MAGIC);            // Cabeçalho completo antes do MAGIC
+    }
+
+    private static int align8(int v) { return (v + 7) & ~7; }
+
+    public static int bufferSize(Maze maze, int count) {
+        return align8(OFF_ACTIONS + count) + count * GameEnv.observationSize(maze);
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return ch.map(FileChannel.MapMode.READ_WRITE, 0, size); // O mapeamento continua válido após fechar
+        }
+    }
+
+    public void resetAll() {
+        for (GameEnv env : envs) env.reset();
+        publishSteps();
+    }
+
+    /** Avança todos os ambientes com as ações dadas (uma por ambiente) */
+    public void step(int[] actions) {
+        if (actions.length != envs.length) throw new IllegalArgumentException("esperado " + envs.length + " ações");
+        if (envs.length >= PARALLEL_MIN) {
+            IntStream.range(0, envs.length).parallel().forEach(i -> stepOne(i, actions[i]));
+        } else {
+            for (int i = 0; i < envs.length; i++) stepOne(i, actions[i]);
+        }
+        publishSteps();
+    }
+
+    /** Espera as ações do lote atual (processo de treino) e avança todos os ambientes com elas */
+    public void stepFromBuffer() {
+        stepFromBuffer(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Como {@link #stepFromBuffer()}, mas desiste se as ações não chegarem no prazo.
+     * Devolve false no prazo esgotado ou se a thread for interrompida (estado de interrupção mantido).
+     */
+    public boolean stepFromBuffer(long timeout, TimeUnit unit) {
+        if (steps == 0) throw new IllegalStateException("resetAll() antes do primeiro lote");
+        if (!awaitActions(unit.toNanos(timeout))) return false;
+        if (envs.length >= PARALLEL_MIN) {
+            IntStream.range(0, envs.length).parallel().forEach(i -> stepOne(i, buffer.get(OFF_ACTIONS + i)));
+        } else {
+            for (int i = 0; i < envs.length; i++) stepOne(i, buffer.get(OFF_ACTIONS + i));
+        }
+        publishSteps();
+        return true;
+    }
+
+    /** Espera o treino responder ao lote publicado (leitura acquire: as ações vêm junto) */
+    private boolean awaitActions(long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        for (int spin = 0; (long) LONGS.getAcquire(buffer, OFF_ACTION_SEQ) != steps; spin++) {
+            if (spin < SPINS) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (Thread.currentThread().isInterrupted()) return false;
+            long left = deadline - System.nanoTime();
+            if (timeoutNanos != Long.MAX_VALUE && left <= 0) return false;
+            LockSupport.parkNanos(Math.min(PARK_NANOS, Math.max(1, left)));
+        }
+        return true;
+    }
+
+    private void stepOne(int i, int action) {
+        GameEnv env = envs[i];
+        if (env.isDone()) {
+            env.reset();
+        } else {
+            env.step(action < 0 || action >= GameEnv.ACTION_COUNT ? GameEnv.ACTION_NONE : action);
+        }
+    }
+
+    private void publishSteps() {
+        // Release: as observações ficam visíveis antes do contador novo
+        LONGS.setRelease(buffer, OFF_STEPS, ++steps);
+    }
+
+    public int size() { return envs.length; }
+    public GameEnv env(int i) { return envs[i]; }
+    public ByteBuffer buffer() { return buffer; }
+    public int observationOffset(int i) { return obsOffset + i * stride; }
+
+    /** Medição: java VectorEnv [ambientes] [segundos] [arquivo] */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        String file = args.length > 2 ? args[2] : "src/resources/maze.txt";
+        Maze maze = Maze.load(file);
+        if (maze == null) throw new IllegalArgumentException("Labirinto inválido: " + file);
+
+        VectorEnv vec = new VectorEnv(maze, count);
+        vec.resetAll();
+        int[] actions = new int[count];
+        Random rnd = new Random(42);
+        long total = 0;
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            for (int b = 0; b < 64; b++) {
+                for (int i = 0; i < count; i++) actions[i] = 1 + rnd.nextInt(4);
+                vec.step(actions);
+                total += count;
+            }
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d ambientes: %.2f milhões de steps/s%n", count, total / secs / 1e6);
+    }
+}